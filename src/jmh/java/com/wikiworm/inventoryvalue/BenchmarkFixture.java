@@ -0,0 +1,307 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import com.google.inject.Guice;
+import net.runelite.api.Client;
+import net.runelite.api.EnumComposition;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.http.api.item.ItemPrice;
+import org.mockito.Mockito;
+
+import javax.inject.Singleton;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Deterministic, in-memory stand-ins for the client, item manager and config used by the benchmarks. Every item id
+ * has a fixed name, GE price and HA price derived from the id, so runs are repeatable.
+ */
+final class BenchmarkFixture
+{
+    static final int FIRST_ITEM_ID = 1000;
+    static final int ITEM_COUNT = 4000;
+
+    final Map<InventoryID, Item[]> containers = new EnumMap<>(InventoryID.class);
+    final Map<String, Object> configValues = new HashMap<>();
+    final Map<Integer, Integer> varbits = new HashMap<>();
+    // items with a recorded name and prices, any other item gets ones derived from its id
+    final Map<Integer, ItemDefinition> items = new HashMap<>();
+    // where the local player stands, or null for no player
+    WorldPoint playerLocation = null;
+
+    final Client client = stub(Client.class, (method, args) -> {
+        switch(method) {
+            case "getItemContainer":
+                return args[0] instanceof InventoryID ? container((InventoryID) args[0]) : null;
+            case "getVarbitValue":
+                return varbits.getOrDefault((Integer) args[0], 0);
+            case "getEnum":
+                return stub(EnumComposition.class, (m, a) -> "getIntValue".equals(m) ? (Integer) a[0] : null);
+            case "isClientThread":
+                return true;
+            case "getLocalPlayer":
+                return playerLocation != null ? player(playerLocation) : null;
+            case "getAccountHash":
+                // never logged in, so no saved session is ever read or written
+                return -1L;
+            default:
+                return null;
+        }
+    });
+
+    // every config method answers from configValues, so a measured path can't silently read a made up default
+    final InventoryValueConfig config = stub(InventoryValueConfig.class, (method, args) -> {
+        Object value = configValues.get(method);
+        if(value == null) throw new IllegalStateException("No benchmark config value for " + method);
+        return value;
+    });
+
+    final ItemManager itemManager = Mockito.mock(ItemManager.class, invocation -> {
+        switch(invocation.getMethod().getName()) {
+            case "getItemComposition":
+                return composition((Integer) invocation.getArgument(0));
+            case "getItemPrice":
+                return gePriceOf((Integer) invocation.getArgument(0));
+            case "canonicalize":
+                return invocation.getArgument(0);
+            case "search":
+                return search((String) invocation.getArgument(0));
+            default:
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }
+    });
+
+    final InventoryValuePlugin plugin;
+    final InventoryValueOverlay overlay;
+
+    BenchmarkFixture() {
+        configValues.put("useHighAlchemyValue", false);
+        configValues.put("priceSource", PriceSourceType.GRAND_EXCHANGE);
+        configValues.put("displayBothValues", false);
+        configValues.put("ignoreCoins", false);
+        configValues.put("ignoreItems", "");
+        configValues.put("displayProfit", true);
+        configValues.put("displayProfitRates", false);
+        configValues.put("displayNetWorth", true);
+        configValues.put("topStacks", 0);
+        configValues.put("holdingsTooltips", false);
+        configValues.put("backgroundBankValuation", false);
+        configValues.put("debugMetrics", false);
+        configValues.put("recordEvents", false);
+        configValues.put("exportSession", false);
+
+        com.google.inject.Injector injector = Guice.createInjector(binder -> {
+            binder.bind(Client.class).toInstance(client);
+            binder.bind(ItemManager.class).toInstance(itemManager);
+            binder.bind(InventoryValueConfig.class).toInstance(config);
+            binder.bind(OverlayManager.class).toInstance(Mockito.mock(OverlayManager.class));
+            binder.bind(ChatMessageManager.class).toInstance(Mockito.mock(ChatMessageManager.class));
+            binder.bind(ClientThread.class).toInstance(Mockito.mock(ClientThread.class));
+            binder.bind(ScheduledExecutorService.class).toInstance(Mockito.mock(ScheduledExecutorService.class));
+            // so the overlay here is the one the plugin publishes to
+            binder.bind(InventoryValueOverlay.class).in(Singleton.class);
+        });
+        plugin = injector.getInstance(InventoryValuePlugin.class);
+        overlay = injector.getInstance(InventoryValueOverlay.class);
+        // as the plugin does at startup, so items are priced through the configured source
+        injector.getInstance(PriceSources.class).select(config.priceSource());
+    }
+
+    /**
+     * Builds a container of the given size where roughly the given fraction of slots are bank placeholders
+     * (quantity 0) and the rest hold a random stack.
+     */
+    static Item[] randomContainer(int slots, double placeholderFraction, long seed) {
+        Random random = new Random(seed);
+        Item[] items = new Item[slots];
+        for(int i = 0; i < slots; i++) {
+            int id = FIRST_ITEM_ID + random.nextInt(ITEM_COUNT);
+            int quantity = random.nextDouble() < placeholderFraction ? 0 : 1 + random.nextInt(10_000);
+            items[i] = new Item(id, quantity);
+        }
+        return items;
+    }
+
+    static String name(int itemId) {
+        return "Item " + itemId;
+    }
+
+    static int gePrice(int itemId) {
+        return (itemId * 7919) % 100_000;
+    }
+
+    static int haPrice(int itemId) {
+        return (itemId * 104_729) % 60_000;
+    }
+
+    /**
+     * Returns the inventory id with the given container id, or null if there's none.
+     */
+    static InventoryID inventoryId(int containerId) {
+        for(InventoryID inventoryID : InventoryID.values()) {
+            if(inventoryID.getId() == containerId) return inventoryID;
+        }
+        return null;
+    }
+
+    ItemContainer container(InventoryID inventoryID) {
+        final Item[] items = containers.get(inventoryID);
+        if(items == null) return null;
+        return stub(ItemContainer.class, (method, args) -> {
+            switch(method) {
+                case "getItems":
+                    return items;
+                case "getId":
+                    return inventoryID.getId();
+                case "size":
+                    return items.length;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Player player(WorldPoint location) {
+        return stub(Player.class, (method, args) -> "getWorldLocation".equals(method) ? location : null);
+    }
+
+    private String nameOf(int itemId) {
+        ItemDefinition item = items.get(itemId);
+        return item != null ? item.name : name(itemId);
+    }
+
+    private int gePriceOf(int itemId) {
+        ItemDefinition item = items.get(itemId);
+        return item != null ? item.gePrice : gePrice(itemId);
+    }
+
+    private int haPriceOf(int itemId) {
+        ItemDefinition item = items.get(itemId);
+        return item != null ? item.haPrice : haPrice(itemId);
+    }
+
+    private ItemComposition composition(int itemId) {
+        return stub(ItemComposition.class, (method, args) -> {
+            switch(method) {
+                case "getName":
+                    return nameOf(itemId);
+                case "getId":
+                    return itemId;
+                case "getPrice":
+                case "getHaPrice":
+                    return haPriceOf(itemId);
+                case "getNote":
+                case "getLinkedNoteId":
+                case "getPlaceholderId":
+                case "getPlaceholderTemplateId":
+                    return -1;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private Object search(String name) {
+        for(Map.Entry<Integer, ItemDefinition> item : items.entrySet()) {
+            if(item.getValue().name.equalsIgnoreCase(name)) return Collections.singletonList(itemPrice(item.getKey()));
+        }
+        for(int id = FIRST_ITEM_ID; id < FIRST_ITEM_ID + ITEM_COUNT; id++) {
+            if(name(id).equalsIgnoreCase(name)) return Collections.singletonList(itemPrice(id));
+        }
+        return Collections.emptyList();
+    }
+
+    private ItemPrice itemPrice(int itemId) {
+        ItemPrice price = new ItemPrice();
+        price.setId(itemId);
+        price.setName(nameOf(itemId));
+        price.setPrice(gePriceOf(itemId));
+        return price;
+    }
+
+    static final class ItemDefinition
+    {
+        final String name;
+        final int gePrice;
+        final int haPrice;
+
+        ItemDefinition(String name, int gePrice, int haPrice) {
+            this.name = name;
+            this.gePrice = gePrice;
+            this.haPrice = haPrice;
+        }
+    }
+
+    interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+
+    /**
+     * Implements an interface by answering each call by method name, falling back to the zero value of the return
+     * type for anything not answered.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{ type }, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+            }
+            Object value = answer.answer(method.getName(), args == null ? new Object[0] : args);
+            if(value != null) return value;
+
+            Class<?> returnType = method.getReturnType();
+            if(returnType == boolean.class) return false;
+            if(returnType == int.class) return 0;
+            if(returnType == long.class) return 0L;
+            if(returnType == double.class) return 0d;
+            if(returnType == String.class) return "";
+            return null;
+        });
+    }
+}
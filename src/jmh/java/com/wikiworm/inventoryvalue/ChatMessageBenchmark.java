@@ -0,0 +1,102 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of onChatMessage for chat the plugin doesn't care about and for each storage bag message it parses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageBenchmark
+{
+    BenchmarkFixture fixture;
+    ChatMessage publicChat;
+    ChatMessage unrelatedGameMessage;
+    ChatMessage herbSackCheck;
+    ChatMessage seedBoxCheck;
+    ChatMessage gemBagCheck;
+
+    @Setup
+    public void setup() {
+        fixture = new BenchmarkFixture();
+        publicChat = message(ChatMessageType.PUBLICCHAT, "selling lobbies 200 ea, pm me");
+        unrelatedGameMessage = message(ChatMessageType.GAMEMESSAGE, "You catch a lobster.");
+        herbSackCheck = message(ChatMessageType.GAMEMESSAGE, "12 x Grimy ranarr weed");
+        seedBoxCheck = message(ChatMessageType.GAMEMESSAGE, "30 x Ranarr seed.");
+        gemBagCheck = message(ChatMessageType.GAMEMESSAGE,
+                "Sapphires: 4 / Emeralds: 2 / Rubies: 1<br>Diamonds: 0 / Dragonstones: 0");
+    }
+
+    @Benchmark
+    public void publicChat() {
+        fixture.plugin.onChatMessage(publicChat);
+    }
+
+    @Benchmark
+    public void unrelatedGameMessage() {
+        fixture.plugin.onChatMessage(unrelatedGameMessage);
+    }
+
+    @Benchmark
+    public void herbSackCheck() {
+        fixture.plugin.onChatMessage(herbSackCheck);
+    }
+
+    @Benchmark
+    public void seedBoxCheck() {
+        fixture.plugin.onChatMessage(seedBoxCheck);
+    }
+
+    @Benchmark
+    public void gemBagCheck() {
+        fixture.plugin.onChatMessage(gemBagCheck);
+    }
+
+    private static ChatMessage message(ChatMessageType type, String text) {
+        return new ChatMessage(null, type, "", text, "", 0);
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a recording made with the "Record events" option against the plugin, using the benchmark fixture's
+ * stand-ins for the client and item manager, then reports the throughput, the latency of each kind of event and
+ * the final values. Replays are deterministic, so the final values of two builds can be compared directly. A
+ * recording that dropped ticks because the disk couldn't keep up is still replayed, with a warning, but its final
+ * values won't match the session's. The replay is never logged into an account, so the saved session the plugin
+ * restores on login isn't replayed either.
+ * <pre>
+ * ./gradlew replay -PreplayFile=&lt;recording.ivr&gt; [-PreplayRuns=&lt;runs&gt;]
+ * </pre>
+ */
+public final class EventReplayer
+{
+    private static final String[] EVENT_NAMES = {
+            "GameTick", "ItemContainerChanged", "ChatMessage", "MenuOptionClicked", "VarbitChanged", "WidgetLoaded",
+            "WidgetClosed", null, null, "ItemSpawned", "GameStateChanged"
+    };
+
+    private EventReplayer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1 || args[0].isEmpty()) {
+            System.err.println("usage: EventReplayer <recording.ivr> [runs]");
+            System.exit(1);
+        }
+
+        final List<Event> events = read(new File(args[0]));
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        // later runs show the steady state once the JIT has warmed up
+        for(int run = 1; run <= runs; run++) {
+            System.out.println("Run " + run + " of " + runs);
+            replay(events);
+        }
+    }
+
+    private static void replay(List<Event> events) {
+        final BenchmarkFixture fixture = new BenchmarkFixture();
+        final ValueHistogram[] latencies = new ValueHistogram[EVENT_NAMES.length];
+        for(int i = 0; i < latencies.length; i++) {
+            latencies[i] = new ValueHistogram();
+        }
+
+        // an item is recorded when it's first valued, which may be after the event that needed it
+        for(Event event : events) {
+            if(event.type == EventRecorder.ITEM) event.prepare(fixture);
+        }
+
+        long dispatched = 0;
+        long busyNanos = 0;
+        for(Event event : events) {
+            if(event.type == EventRecorder.ITEM) continue;
+            // only the plugin's handling of the event is timed, not updating the stand-ins
+            event.prepare(fixture);
+
+            long start = System.nanoTime();
+            event.dispatch(fixture.plugin);
+            long elapsed = System.nanoTime() - start;
+            latencies[event.type].record(elapsed);
+            busyNanos += elapsed;
+            dispatched++;
+        }
+
+        System.out.printf("  %d events in %.1f ms, %.0f events/s%n", dispatched, busyNanos / 1e6,
+                busyNanos == 0 ? 0d : dispatched * 1e9 / busyNanos);
+        for(int i = 0; i < latencies.length; i++) {
+            ValueHistogram histogram = latencies[i];
+            if(histogram.getCount() == 0) continue;
+            System.out.printf("  %-21s %8d x  p50 %7.1f us  p99 %7.1f us  max %8.1f us%n", EVENT_NAMES[i],
+                    histogram.getCount(), histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                    histogram.getMax() / 1e3);
+        }
+
+        InventoryValueSnapshot values = fixture.overlay.getSnapshot();
+        System.out.printf("  inventory %d, inventory profit %d, bank profit %d, net worth %d%n",
+                values.getInventoryValue(), values.getProfitInvValue(), values.getProfitBankValue(),
+                values.getNetWorth());
+    }
+
+    private static List<Event> read(File file) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if(in.readInt() != EventRecorder.MAGIC || in.readInt() != EventRecorder.VERSION) {
+                throw new IOException(file + " isn't a recording this version can replay");
+            }
+            long dropped = 0;
+            while(true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch(EOFException e) {
+                    break;
+                }
+                if(type == EventRecorder.DROPPED) {
+                    dropped += in.readLong();
+                    continue;
+                }
+                events.add(readEvent((byte) type, in));
+            }
+            if(dropped > 0) {
+                System.err.println("Warning: " + file + " is missing " + dropped + " ticks the recording dropped");
+            }
+        }
+        return events;
+    }
+
+    private static Event readEvent(byte type, DataInputStream in) throws IOException {
+        switch(type) {
+            case EventRecorder.TICK: {
+                GameTick tick = new GameTick();
+                return new Event(type, fixture -> {}, plugin -> plugin.onGameTick(tick));
+            }
+            case EventRecorder.CONTAINER: {
+                int containerId = in.readInt();
+                Item[] items = new Item[in.readInt()];
+                for(int i = 0; i < items.length; i++) {
+                    items[i] = new Item(in.readInt(), in.readInt());
+                }
+                InventoryID inventoryId = BenchmarkFixture.inventoryId(containerId);
+                ItemContainerChanged[] event = new ItemContainerChanged[1];
+                return new Event(type, fixture -> {
+                    if(inventoryId != null) fixture.containers.put(inventoryId, items);
+                    event[0] = new ItemContainerChanged(containerId,
+                            inventoryId != null ? fixture.container(inventoryId) : null);
+                }, plugin -> plugin.onItemContainerChanged(event[0]));
+            }
+            case EventRecorder.CHAT: {
+                ChatMessageType chatType = chatMessageType(in.readUTF());
+                ChatMessage message = new ChatMessage(null, chatType, in.readUTF(), in.readUTF(), "", 0);
+                return new Event(type, fixture -> {}, plugin -> plugin.onChatMessage(message));
+            }
+            case EventRecorder.MENU_OPTION: {
+                int identifier = in.readInt();
+                int itemId = in.readInt();
+                String option = in.readUTF();
+                MenuOptionClicked event = new MenuOptionClicked(BenchmarkFixture.stub(MenuEntry.class, (method, args) -> {
+                    switch(method) {
+                        case "getIdentifier":
+                            return identifier;
+                        case "getItemId":
+                            return itemId;
+                        case "getOption":
+                            return option;
+                        default:
+                            return null;
+                    }
+                }));
+                return new Event(type, fixture -> {}, plugin -> plugin.onMenuOptionClicked(event));
+            }
+            case EventRecorder.VARBIT: {
+                VarbitChanged event = new VarbitChanged();
+                event.setVarbitId(in.readInt());
+                event.setValue(in.readInt());
+                return new Event(type, fixture -> fixture.varbits.put(event.getVarbitId(), event.getValue()),
+                        plugin -> plugin.onVarbitChanged(event));
+            }
+            case EventRecorder.WIDGET_LOADED: {
+                WidgetLoaded event = new WidgetLoaded();
+                event.setGroupId(in.readInt());
+                return new Event(type, fixture -> {}, plugin -> plugin.onWidgetLoaded(event));
+            }
+            case EventRecorder.WIDGET_CLOSED: {
+                WidgetClosed event = new WidgetClosed(in.readInt(), 0, true);
+                return new Event(type, fixture -> {}, plugin -> plugin.onWidgetClosed(event));
+            }
+            case EventRecorder.ITEM_SPAWNED: {
+                int itemId = in.readInt();
+                int quantity = in.readInt();
+                WorldPoint location = readPoint(in);
+                WorldPoint playerLocation = readPoint(in);
+                Tile tile = BenchmarkFixture.stub(Tile.class, (method, args) ->
+                        "getWorldLocation".equals(method) ? location : null);
+                TileItem item = BenchmarkFixture.stub(TileItem.class, (method, args) -> {
+                    switch(method) {
+                        case "getId":
+                            return itemId;
+                        case "getQuantity":
+                            return quantity;
+                        default:
+                            return null;
+                    }
+                });
+                ItemSpawned event = new ItemSpawned(tile, item);
+                return new Event(type, fixture -> fixture.playerLocation = playerLocation,
+                        plugin -> plugin.onItemSpawned(event));
+            }
+            case EventRecorder.GAME_STATE: {
+                GameStateChanged event = new GameStateChanged();
+                event.setGameState(gameState(in.readUTF()));
+                return new Event(type, fixture -> {}, plugin -> plugin.onGameStateChanged(event));
+            }
+            case EventRecorder.ITEM: {
+                int itemId = in.readInt();
+                BenchmarkFixture.ItemDefinition item = new BenchmarkFixture.ItemDefinition(in.readUTF(), in.readInt(),
+                        in.readInt());
+                return new Event(type, fixture -> fixture.items.put(itemId, item), plugin -> {});
+            }
+            default:
+                throw new IOException("unknown record type " + type);
+        }
+    }
+
+    private static WorldPoint readPoint(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new WorldPoint(in.readInt(), in.readInt(), in.readInt()) : null;
+    }
+
+    private static GameState gameState(String name) {
+        try {
+            return GameState.valueOf(name);
+        } catch(IllegalArgumentException e) {
+            return GameState.UNKNOWN;
+        }
+    }
+
+    private static ChatMessageType chatMessageType(String name) {
+        try {
+            return ChatMessageType.valueOf(name);
+        } catch(IllegalArgumentException e) {
+            return ChatMessageType.UNKNOWN;
+        }
+    }
+
+    private interface Step<T>
+    {
+        void run(T target);
+    }
+
+    private static final class Event
+    {
+        private final byte type;
+        private final Step<BenchmarkFixture> prepare;
+        private final Step<InventoryValuePlugin> dispatch;
+
+        private Event(byte type, Step<BenchmarkFixture> prepare, Step<InventoryValuePlugin> dispatch) {
+            this.type = type;
+            this.prepare = prepare;
+            this.dispatch = dispatch;
+        }
+
+        private void prepare(BenchmarkFixture fixture) {
+            prepare.run(fixture);
+        }
+
+        private void dispatch(InventoryValuePlugin plugin) {
+            dispatch.run(plugin);
+        }
+    }
+}
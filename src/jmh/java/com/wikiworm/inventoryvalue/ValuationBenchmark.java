@@ -0,0 +1,132 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of valuing a container of the given size, both from scratch and after a single slot changed, as well as of
+ * the per-item and ignore list paths underneath it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValuationBenchmark
+{
+    // an inventory, a mid-sized bank and a full bank
+    @Param({"28", "400", "1200"})
+    int slots;
+
+    BenchmarkFixture fixture;
+    Item[] items;
+    Item[] changedItems;
+    Item item;
+    ContainerValuation valuation;
+    ContainerValuation.ItemValuer valuer;
+    boolean changed;
+
+    @Setup
+    public void setup() {
+        fixture = new BenchmarkFixture();
+        fixture.configValues.put("ignoreItems", "Item 1001, Item 2002; *godsword, clue scroll*");
+        fixture.plugin.compileIgnoredItems();
+
+        // banks above inventory size are mostly placeholders
+        items = BenchmarkFixture.randomContainer(slots, slots > 28 ? 0.6 : 0.1, 42L);
+        changedItems = items.clone();
+        int slot = slots / 2;
+        changedItems[slot] = new Item(items[slot].getId(), items[slot].getQuantity() + 1);
+        item = new Item(BenchmarkFixture.FIRST_ITEM_ID + 7, 250);
+
+        valuer = (id, qty, column) -> fixture.plugin.calculateItemValue(id, qty, column);
+        valuation = new ContainerValuation();
+        valuation.update(items, valuer);
+
+        fixture.containers.put(InventoryID.INVENTORY, items);
+        fixture.containers.put(InventoryID.BANK, items);
+    }
+
+    @Benchmark
+    public long calculateItemValue() {
+        return fixture.plugin.calculateItemValue(item);
+    }
+
+    @Benchmark
+    public long fullValuation() {
+        valuation.invalidate();
+        valuation.update(items, valuer);
+        return valuation.getTotal(ContainerValuation.GE);
+    }
+
+    @Benchmark
+    public long singleSlotChange() {
+        changed = !changed;
+        valuation.update(changed ? changedItems : items, valuer);
+        return valuation.getTotal(ContainerValuation.GE);
+    }
+
+    @Benchmark
+    public long unchangedContainer() {
+        valuation.update(items, valuer);
+        return valuation.getTotal(ContainerValuation.GE);
+    }
+
+    @Benchmark
+    public void valuationPass() {
+        // what a game tick costs when a slot of both the inventory and bank changed. The contents alternate, as
+        // unchanged contents would only time the check that nothing changed
+        changed = !changed;
+        Item[] contents = changed ? changedItems : items;
+        fixture.containers.put(InventoryID.INVENTORY, contents);
+        fixture.containers.put(InventoryID.BANK, contents);
+        fixture.plugin.updateInventoryValue(true, false);
+    }
+
+    @Benchmark
+    public List<String> buildIgnoredItemsList() {
+        return fixture.plugin.buildIgnoredItemsList();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Values the bank on the executor instead of the client thread. The client thread copies the bank into a
+ * {@link Snapshot} and the executor diffs it against the previous one, publishing the new totals for the client
+ * thread to pick up with {@link #poll()}.
+ */
+@Singleton
+class BankValuator
+{
+    private static final long UNPRICED = -1L;
+
+    private final ScheduledExecutorService executor;
+
+    // client thread only, holding the unit value of item id i in column c at i * COLUMNS + c. Entries are written
+    // once, before the first snapshot holding the item is submitted, so the executor never sees a value change
+    // underneath it. Invalidating swaps in a fresh table instead.
+    private long[] unitValues = newTable(ContainerValuation.COLUMNS << 12);
+    // client thread only, the number of snapshots submitted
+    private int submitted = 0;
+
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // taken by poll
+    private final AtomicReference<Result> result = new AtomicReference<>();
+    // the last published result, null until a snapshot is valued
+    private volatile Result latest = null;
+
+    // executor only
+    private final ContainerValuation valuation = new ContainerValuation();
+    private long[] valuedWith = null;
+
+    @Inject
+    BankValuator(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Copies the bank contents and queues them to be valued. If the executor hasn't picked up the previous
+     * snapshot yet it's replaced, as only the latest bank contents matter.
+     *
+     * @return the snapshot's sequence number, see {@link Result#getSequence()}
+     */
+    int submit(Item[] items, ContainerValuation.ItemValuer valuer) {
+        int[] ids = new int[items.length];
+        int[] quantities = new int[items.length];
+        for(int i = 0; i < items.length; i++) {
+            ids[i] = items[i].getId();
+            quantities[i] = items[i].getQuantity();
+            if(quantities[i] > 0) price(ids[i], valuer);
+        }
+
+        pending.set(new Snapshot(++submitted, ids, quantities, unitValues));
+        if(scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return submitted;
+    }
+
+    /**
+     * Returns the latest bank values published by the executor, or null if there's been none since the last call.
+     */
+    Result poll() {
+        return result.getAndSet(null);
+    }
+
+    /**
+     * Returns the most valuable stacks in the given column of the last snapshot valued, most valuable first, or
+     * null if none has been valued yet.
+     */
+    List<ValuedStack> getTopStacks(int column) {
+        final Result current = latest;
+        return current != null ? current.topStacks.get(column) : null;
+    }
+
+    /**
+     * Drops every unit value, the next snapshot submitted is valued from scratch.
+     */
+    void invalidate() {
+        unitValues = newTable(unitValues.length);
+    }
+
+    /**
+     * Drops the unit values of the given items, e.g. storage bags whose contents changed, the next snapshot submitted
+     * values them again.
+     */
+    void invalidate(int[] itemIds) {
+        long[] table = null;
+        for(int itemId : itemIds) {
+            int index = itemId * ContainerValuation.COLUMNS;
+            if(itemId <= 0 || index >= unitValues.length || unitValues[index] == UNPRICED) continue;
+            // the executor may still be valuing a snapshot with the current table, so it's copied rather than changed
+            if(table == null) table = unitValues.clone();
+            Arrays.fill(table, index, index + ContainerValuation.COLUMNS, UNPRICED);
+        }
+        if(table != null) unitValues = table;
+    }
+
+    private void price(int itemId, ContainerValuation.ItemValuer valuer) {
+        if(itemId <= 0) return;
+        int index = itemId * ContainerValuation.COLUMNS;
+        if(index >= unitValues.length) {
+            int oldLength = unitValues.length;
+            unitValues = Arrays.copyOf(unitValues, Integer.highestOneBit(index) << 1);
+            Arrays.fill(unitValues, oldLength, unitValues.length, UNPRICED);
+        }
+        if(unitValues[index] == UNPRICED) {
+            for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+                unitValues[index + column] = valuer.valueOf(itemId, 1, column);
+            }
+        }
+    }
+
+    private void drain() {
+        Snapshot snapshot;
+        while((snapshot = pending.getAndSet(null)) != null) {
+            final long[] prices = snapshot.unitValues;
+            // a new table means prices changed (or the table grew), so no slot value can be reused
+            if(prices != valuedWith) {
+                valuation.invalidate();
+                valuedWith = prices;
+            }
+            valuation.update(snapshot.ids, snapshot.quantities,
+                    (id, qty, column) -> qty * prices[id * ContainerValuation.COLUMNS + column]);
+
+            long[] totals = new long[ContainerValuation.COLUMNS];
+            List<List<ValuedStack>> topStacks = new ArrayList<>(ContainerValuation.COLUMNS);
+            for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+                totals[column] = valuation.getTotal(column);
+                List<ValuedStack> top = new ArrayList<>(StackRanking.MAX_TOP);
+                valuation.collectTop(column, StackRanking.MAX_TOP, top);
+                topStacks.add(top);
+            }
+            Result valued = new Result(snapshot.sequence, totals, topStacks);
+            latest = valued;
+            result.set(valued);
+        }
+        scheduled.set(false);
+
+        // a snapshot submitted after the loop ended but before the flag was cleared would otherwise be stranded
+        if(pending.get() != null && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private static long[] newTable(int size) {
+        long[] table = new long[size];
+        Arrays.fill(table, UNPRICED);
+        return table;
+    }
+
+    /**
+     * The bank's totals and most valuable stacks in each column.
+     */
+    static final class Result
+    {
+        private final int sequence;
+        private final long[] totals;
+        private final List<List<ValuedStack>> topStacks;
+
+        private Result(int sequence, long[] totals, List<List<ValuedStack>> topStacks) {
+            this.sequence = sequence;
+            this.totals = totals;
+            this.topStacks = topStacks;
+        }
+
+        /**
+         * Returns the sequence number {@link #submit} returned for the snapshot these values are from. A later
+         * snapshot has a higher number.
+         */
+        int getSequence() {
+            return sequence;
+        }
+
+        long getTotal(int column) {
+            return totals[column];
+        }
+    }
+
+    private static final class Snapshot
+    {
+        private final int sequence;
+        private final int[] ids;
+        private final int[] quantities;
+        private final long[] unitValues;
+
+        private Snapshot(int sequence, int[] ids, int[] quantities, long[] unitValues) {
+            this.sequence = sequence;
+            this.ids = ids;
+            this.quantities = quantities;
+            this.unitValues = unitValues;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.client.util.Text;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routes the chat messages the plugin cares about to a {@link Handler}. Messages are first filtered on their type
+ * and first character, so the chat lines that make up almost all chat are rejected without running a regex. The
+ * storage messages are matched against a single pattern combining the check and empty messages of every
+ * {@link StorageBag}. Must only be used from the client thread, as the matchers are reused between messages.
+ */
+@Singleton
+class ChatMessageDispatcher
+{
+    static final String RESET_COMMAND = "!Reset_iv";
+    static final String LOOKUP_COMMAND = "!iv ";
+
+    private static final StorageBag[] BAGS = StorageBag.all();
+    // the groups of the combined pattern matching each bag's messages, indexed by StorageBag ordinal
+    private static final String[] CHECK_GROUPS = groupNames("check");
+    private static final String[] EMPTY_GROUPS = groupNames("empty");
+    private static final Pattern STORAGE_MESSAGE = storageMessagePattern();
+    // the first characters a storage message can start with
+    private static final boolean[] LEADING = leadingCharacters(STORAGE_MESSAGE);
+
+    interface Handler
+    {
+        void onStorageItem(StorageBag bag, String itemName, int quantity);
+
+        void onStorageEmpty(StorageBag bag);
+
+        void onResetCommand();
+
+        void onLookupCommand(String itemName);
+    }
+
+    private final Client client;
+    private final Matcher storageMatcher = STORAGE_MESSAGE.matcher("");
+    // indexed by StorageBag ordinal, the entry matchers are null for bags reporting a single entry
+    private final Matcher[] checkMatchers = new Matcher[BAGS.length];
+    private final Matcher[] entryMatchers = new Matcher[BAGS.length];
+
+    @Inject
+    ChatMessageDispatcher(Client client) {
+        this.client = client;
+        for(StorageBag bag : BAGS) {
+            checkMatchers[bag.ordinal()] = Pattern.compile(bag.getCheckMessage()).matcher("");
+            if(bag.getEntry() != null) entryMatchers[bag.ordinal()] = Pattern.compile(bag.getEntry()).matcher("");
+        }
+    }
+
+    void dispatch(ChatMessage chatMessage, Handler handler) {
+        final ChatMessageType type = chatMessage.getType();
+        final String message = chatMessage.getMessage();
+        if(message == null || message.isEmpty()) return;
+
+        if(type == ChatMessageType.GAMEMESSAGE || type == ChatMessageType.SPAM) {
+            dispatchStorageMessage(message, handler);
+        } else if(message.charAt(0) == '!' && isLocalPlayer(chatMessage.getName())) {
+            dispatchCommand(message, handler);
+        }
+    }
+
+    private void dispatchCommand(String message, Handler handler) {
+        if(message.equals(RESET_COMMAND)) {
+            handler.onResetCommand();
+        } else if(message.regionMatches(true, 0, LOOKUP_COMMAND, 0, LOOKUP_COMMAND.length())) {
+            String itemName = message.substring(LOOKUP_COMMAND.length()).trim();
+            if(!itemName.isEmpty()) handler.onLookupCommand(itemName);
+        }
+    }
+
+    private void dispatchStorageMessage(String message, Handler handler) {
+        char first = message.charAt(0);
+        if(first < LEADING.length && !LEADING[first]) return;
+        if(!storageMatcher.reset(message).matches()) return;
+
+        for(StorageBag bag : BAGS) {
+            if(storageMatcher.start(EMPTY_GROUPS[bag.ordinal()]) != -1) {
+                handler.onStorageEmpty(bag);
+                return;
+            }
+            if(storageMatcher.start(CHECK_GROUPS[bag.ordinal()]) == -1) continue;
+
+            // the combined pattern only tells which bag, the bag's own pattern picks the entries out
+            Matcher check = checkMatchers[bag.ordinal()].reset(message);
+            if(!check.matches()) return;
+            Matcher entry = entryMatchers[bag.ordinal()];
+            if(entry == null) {
+                handler.onStorageItem(bag, check.group("name"), parseQuantity(check.group("quantity")));
+                return;
+            }
+            entry.reset(check.group("list"));
+            while(entry.find()) {
+                handler.onStorageItem(bag, entry.group("name").trim(), parseQuantity(entry.group("quantity")));
+            }
+            return;
+        }
+    }
+
+    private static int parseQuantity(String quantity) {
+        // e.g. "one piece of coal"
+        return quantity.equals("one") ? 1 : Integer.parseInt(quantity);
+    }
+
+    private static Pattern storageMessagePattern() {
+        StringBuilder pattern = new StringBuilder();
+        for(StorageBag bag : BAGS) {
+            if(pattern.length() > 0) pattern.append('|');
+            // the bag's own named groups would clash between bags, they're only needed once the bag is known
+            pattern.append("(?<").append(CHECK_GROUPS[bag.ordinal()]).append('>')
+                    .append(bag.getCheckMessage().replaceAll("\\(\\?<\\w+>", "(?:")).append(')')
+                    .append("|(?<").append(EMPTY_GROUPS[bag.ordinal()]).append('>')
+                    .append(Pattern.quote(bag.getEmptyMessage())).append(')');
+        }
+        return Pattern.compile(pattern.toString());
+    }
+
+    private static String[] groupNames(String prefix) {
+        String[] names = new String[BAGS.length];
+        for(StorageBag bag : BAGS) {
+            names[bag.ordinal()] = prefix + bag.ordinal();
+        }
+        return names;
+    }
+
+    private static boolean[] leadingCharacters(Pattern pattern) {
+        boolean[] leading = new boolean[128];
+        Matcher matcher = pattern.matcher("");
+        for(char c = 0; c < leading.length; c++) {
+            // hitting the end means the match only failed for want of input, so a longer message could match
+            matcher.reset(String.valueOf(c));
+            leading[c] = matcher.matches() || matcher.hitEnd();
+        }
+        return leading;
+    }
+
+    private boolean isLocalPlayer(String name) {
+        final Player localPlayer = client.getLocalPlayer();
+        return name != null && localPlayer != null && localPlayer.getName() != null
+                && Text.sanitize(name).equals(Text.sanitize(localPlayer.getName()));
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps a cached subtotal for each {@link TrackedContainer} and their sum, the player's net worth. Only the
+ * container that changed is revalued, a container that's closed (e.g. the bank) keeps its last known subtotal.
+ * Subtotals are kept for both {@link ContainerValuation} columns, the column shown is switched in O(1).
+ * Must only be used from the client thread.
+ */
+class ContainerTracker
+{
+    private static final long UNPRICED = Long.MIN_VALUE;
+
+    private final ContainerValuation[] valuations = new ContainerValuation[TrackedContainer.all().length];
+    private final long[][] subtotals = new long[ContainerValuation.COLUMNS][TrackedContainer.all().length];
+    // the last seen contents of each container, null if it's never been seen
+    private final Item[][] contents = new Item[TrackedContainer.all().length][];
+    private final long[] netWorths = new long[ContainerValuation.COLUMNS];
+    // the column returned when none is given
+    private int column = ContainerValuation.GE;
+    // the quantity of each item id across every container, following the last seen contents
+    private final IntLongMap holdings = new IntLongMap(1 << 10);
+    // the change in quantity of each item id since the last drainChanges, only kept while tracking changes
+    private final IntLongMap changes = new IntLongMap();
+    private boolean trackingChanges = false;
+    // unit value of each item id in each column, see ContainerValuation.reprice. Only valid during reprice
+    private long[] unitValues = new long[ContainerValuation.COLUMNS << 12];
+
+    ContainerTracker() {
+        for(int i = 0; i < valuations.length; i++) {
+            valuations[i] = new ContainerValuation();
+        }
+    }
+
+    /**
+     * Applies the latest contents of the given container, revaluing only the slots that changed. If the container
+     * is closed (null items) its last known contents are only revalued if they were invalidated since.
+     */
+    void update(TrackedContainer container, Item[] items, ContainerValuation.ItemValuer valuer) {
+        ContainerValuation valuation = valuations[container.ordinal()];
+        if(items != null) {
+            updateHoldings(contents[container.ordinal()], items);
+            contents[container.ordinal()] = items;
+            if(valuation.update(items, valuer)) setSubtotals(container, valuation);
+        } else if(!valuation.isValued()) {
+            valuation.revalue(valuer);
+            setSubtotals(container, valuation);
+        }
+    }
+
+    /**
+     * Remembers the latest contents of a container valued elsewhere, without valuing them.
+     */
+    void remember(TrackedContainer container, Item[] items) {
+        updateHoldings(contents[container.ordinal()], items);
+        contents[container.ordinal()] = items;
+    }
+
+    private void updateHoldings(Item[] old, Item[] items) {
+        if(old == items) return;
+        if(old == null) {
+            // a container seen for the first time was held all along, so nothing changed
+            addHoldings(items, 1, false);
+            return;
+        }
+        if(old.length != items.length) {
+            addHoldings(old, -1, true);
+            addHoldings(items, 1, true);
+            return;
+        }
+        for(int i = 0; i < items.length; i++) {
+            Item before = old[i];
+            Item after = items[i];
+            if(before.getId() == after.getId() && before.getQuantity() == after.getQuantity()) continue;
+            addHolding(before.getId(), -before.getQuantity(), true);
+            addHolding(after.getId(), after.getQuantity(), true);
+        }
+    }
+
+    private void addHoldings(Item[] items, int sign, boolean changed) {
+        for(Item item : items) {
+            addHolding(item.getId(), sign * item.getQuantity(), changed);
+        }
+    }
+
+    private void addHolding(int itemId, long quantity, boolean changed) {
+        // empty slots and bank placeholders don't hold anything
+        if(itemId <= 0) return;
+        holdings.add(itemId, quantity);
+        if(changed && trackingChanges) changes.add(itemId, quantity);
+    }
+
+    /**
+     * Starts or stops keeping the change in quantity of each item, see {@link #drainChanges}.
+     */
+    void setTrackingChanges(boolean trackingChanges) {
+        this.trackingChanges = trackingChanges;
+        changes.clear();
+    }
+
+    /**
+     * Returns the number of items whose quantity changed since the last drain.
+     */
+    int getChangeCount() {
+        return changes.size();
+    }
+
+    /**
+     * Passes each item (noted and unnoted ids are separate) whose quantity across the containers changed since the
+     * last drain to the consumer with the change, then forgets them. Items moved between containers cancel out.
+     */
+    void drainChanges(IntLongMap.EntryConsumer consumer) {
+        changes.forEach(consumer);
+        changes.clear();
+    }
+
+    /**
+     * Returns the quantity of the given item (noted and unnoted ids are separate) across the last seen contents of
+     * every container.
+     */
+    long getQuantity(int itemId) {
+        return holdings.get(itemId);
+    }
+
+    /**
+     * Returns the last seen contents of the given container, or null if it's never been seen.
+     */
+    Item[] getContents(TrackedContainer container) {
+        return contents[container.ordinal()];
+    }
+
+    /**
+     * Sets the subtotal in the given column of a container valued elsewhere, e.g. the bank valued in the
+     * background.
+     */
+    void setSubtotal(TrackedContainer container, int column, long subtotal) {
+        netWorths[column] += subtotal - subtotals[column][container.ordinal()];
+        subtotals[column][container.ordinal()] = subtotal;
+    }
+
+    private void setSubtotals(TrackedContainer container, ContainerValuation valuation) {
+        for(int c = 0; c < ContainerValuation.COLUMNS; c++) {
+            setSubtotal(container, c, valuation.getTotal(c));
+        }
+    }
+
+    /**
+     * Selects the column the subtotals, net worth and most valuable stacks are returned in when no column is given.
+     */
+    void setColumn(int column) {
+        this.column = column;
+    }
+
+    int getColumn() {
+        return column;
+    }
+
+    /**
+     * Forgets every container, e.g. when switching accounts.
+     */
+    void clear() {
+        for(int i = 0; i < valuations.length; i++) {
+            valuations[i] = new ContainerValuation();
+            contents[i] = null;
+        }
+        for(long[] columnSubtotals : subtotals) {
+            Arrays.fill(columnSubtotals, 0L);
+        }
+        holdings.clear();
+        changes.clear();
+        Arrays.fill(netWorths, 0L);
+    }
+
+    /**
+     * Revalues the slots holding one of the given items in every container valued here, e.g. after the value of a
+     * storage bag changed, leaving every other slot as it was. The deferred container is only invalidated, and only
+     * if its last seen contents hold one of the items. Returns whether they do.
+     */
+    boolean revalueItems(int[] itemIds, ContainerValuation.ItemValuer valuer, TrackedContainer deferred) {
+        boolean deferredHolds = false;
+        for(TrackedContainer container : TrackedContainer.all()) {
+            ContainerValuation valuation = valuations[container.ordinal()];
+            if(container != deferred) {
+                if(valuation.revalueItems(itemIds, valuer)) setSubtotals(container, valuation);
+                continue;
+            }
+            Item[] items = contents[container.ordinal()];
+            if(items == null) continue;
+            for(Item item : items) {
+                for(int itemId : itemIds) {
+                    if(item.getId() == itemId) deferredHolds = true;
+                }
+            }
+            if(deferredHolds) valuation.invalidate();
+        }
+        return deferredHolds;
+    }
+
+    /**
+     * Revalues the stored contents of every container valued here after item values changed (e.g. a price refresh),
+     * without needing the client's containers. Each distinct item is valued once, after which every container is
+     * a dot product of its quantities and the unit values. The deferred container is only invalidated, keeping its
+     * subtotals until the caller sets them (e.g. from a background valuation) or the container is next updated.
+     */
+    void reprice(ContainerValuation.ItemValuer valuer, TrackedContainer deferred) {
+        Arrays.fill(unitValues, UNPRICED);
+        for(TrackedContainer container : TrackedContainer.all()) {
+            ContainerValuation valuation = valuations[container.ordinal()];
+            // an invalidated container still holds its last contents, which are repriced too
+            if(container == deferred || valuation.getIds().length == 0) continue;
+            int[] ids = valuation.getIds();
+            int[] quantities = valuation.getQuantities();
+            for(int i = 0; i < ids.length; i++) {
+                if(ids[i] > 0 && quantities[i] > 0) price(ids[i], valuer);
+            }
+        }
+        for(TrackedContainer container : TrackedContainer.all()) {
+            ContainerValuation valuation = valuations[container.ordinal()];
+            if(container == deferred) {
+                valuation.invalidate();
+                continue;
+            }
+            if(valuation.getIds().length == 0) continue;
+            valuation.reprice(unitValues);
+            setSubtotals(container, valuation);
+        }
+    }
+
+    private void price(int itemId, ContainerValuation.ItemValuer valuer) {
+        int index = itemId * ContainerValuation.COLUMNS;
+        if(index >= unitValues.length) {
+            int oldLength = unitValues.length;
+            unitValues = Arrays.copyOf(unitValues, Integer.highestOneBit(index) << 1);
+            Arrays.fill(unitValues, oldLength, unitValues.length, UNPRICED);
+        }
+        if(unitValues[index] == UNPRICED) {
+            for(int c = 0; c < ContainerValuation.COLUMNS; c++) {
+                unitValues[index + c] = valuer.valueOf(itemId, 1, c);
+            }
+        }
+    }
+
+    /**
+     * Forces every container to be revalued the next time it's updated.
+     */
+    void invalidate() {
+        for(ContainerValuation valuation : valuations) {
+            valuation.invalidate();
+        }
+    }
+
+    /**
+     * Forces the given container to be revalued the next time it's updated.
+     */
+    void invalidate(TrackedContainer container) {
+        valuations[container.ordinal()].invalidate();
+    }
+
+    /**
+     * Adds the (at most) n most valuable stacks of the given container to the list, most valuable first.
+     */
+    void collectTop(TrackedContainer container, int n, List<ValuedStack> out) {
+        valuations[container.ordinal()].collectTop(column, n, out);
+    }
+
+    long getSubtotal(TrackedContainer container) {
+        return subtotals[column][container.ordinal()];
+    }
+
+    long getSubtotal(TrackedContainer container, int column) {
+        return subtotals[column][container.ordinal()];
+    }
+
+    long getNetWorth() {
+        return netWorths[column];
+    }
+
+    long getNetWorth(int column) {
+        return netWorths[column];
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the last seen slots of a single item container along with the value of each slot, so a container change
+ * only has to value the slots that actually changed. Every slot is valued in two columns side by side, at its GE
+ * (or other market) price and at its HA price, so switching between them needs no revaluing.
+ */
+class ContainerValuation
+{
+    static final int GE = 0;
+    static final int HA = 1;
+    static final int COLUMNS = 2;
+
+    interface ItemValuer
+    {
+        long valueOf(int itemId, int quantity, int column);
+    }
+
+    private int[] ids = new int[0];
+    private int[] quantities = new int[0];
+    private final long[][] values = { new long[0], new long[0] };
+    private final StackRanking[] rankings = { new StackRanking(), new StackRanking() };
+    private final long[] totals = new long[COLUMNS];
+    private long fingerprint = 0L;
+    private boolean valued = false;
+
+    /**
+     * Applies the given container contents. Returns false if the contents match what was last applied, in which
+     * case nothing is revalued.
+     */
+    boolean update(Item[] items, ItemValuer valuer) {
+        long newFingerprint = fingerprint(items);
+        if(valued && newFingerprint == fingerprint && items.length == ids.length) {
+            return false;
+        }
+
+        boolean full = !valued || items.length != ids.length;
+        if(full) resize(items.length);
+        for(int i = 0; i < items.length; i++) {
+            applySlot(i, items[i].getId(), items[i].getQuantity(), full, valuer);
+        }
+        if(full) revalue(valuer);
+        fingerprint = newFingerprint;
+        valued = true;
+        return true;
+    }
+
+    /**
+     * Same as {@link #update(Item[], ItemValuer)} for contents copied into id and quantity arrays.
+     */
+    boolean update(int[] newIds, int[] newQuantities, ItemValuer valuer) {
+        long newFingerprint = fingerprint(newIds, newQuantities);
+        if(valued && newFingerprint == fingerprint && newIds.length == ids.length) {
+            return false;
+        }
+
+        boolean full = !valued || newIds.length != ids.length;
+        if(full) resize(newIds.length);
+        for(int i = 0; i < newIds.length; i++) {
+            applySlot(i, newIds[i], newQuantities[i], full, valuer);
+        }
+        if(full) revalue(valuer);
+        fingerprint = newFingerprint;
+        valued = true;
+        return true;
+    }
+
+    private void applySlot(int slot, int id, int quantity, boolean full, ItemValuer valuer) {
+        if(full) {
+            // the whole container is revalued afterwards
+            ids[slot] = id;
+            quantities[slot] = quantity;
+        } else if(id != ids[slot] || quantity != quantities[slot]) {
+            ids[slot] = id;
+            quantities[slot] = quantity;
+            for(int column = 0; column < COLUMNS; column++) {
+                long value = valueOfSlot(id, quantity, column, valuer);
+                totals[column] += value - values[column][slot];
+                values[column][slot] = value;
+                rankings[column].update(slot, value);
+            }
+        }
+    }
+
+    /**
+     * Revalues every slot from the stored contents, e.g. after the value of an item changed.
+     */
+    void revalue(ItemValuer valuer) {
+        for(int column = 0; column < COLUMNS; column++) {
+            long[] columnValues = values[column];
+            long newTotal = 0L;
+            for(int i = 0; i < ids.length; i++) {
+                columnValues[i] = valueOfSlot(ids[i], quantities[i], column, valuer);
+                newTotal += columnValues[i];
+            }
+            totals[column] = newTotal;
+            rankings[column].reset(columnValues);
+        }
+    }
+
+    /**
+     * Revalues only the slots holding one of the given items, e.g. after the value of a storage bag changed. Returns
+     * false if none do. Invalidated contents are left to be revalued by the next update.
+     */
+    boolean revalueItems(int[] itemIds, ItemValuer valuer) {
+        if(!valued) return false;
+        boolean changed = false;
+        for(int i = 0; i < ids.length; i++) {
+            if(!holds(itemIds, ids[i])) continue;
+            changed = true;
+            for(int column = 0; column < COLUMNS; column++) {
+                long value = valueOfSlot(ids[i], quantities[i], column, valuer);
+                totals[column] += value - values[column][i];
+                values[column][i] = value;
+                rankings[column].update(i, value);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Revalues every slot from the stored contents as its quantity times the unit value of its item, looked up in a
+     * table holding the unit value of item id i in column c at index {@code i * COLUMNS + c}. The table must hold
+     * every stored item with a quantity. Invalidated contents count as valued again afterwards.
+     */
+    void reprice(long[] unitValues) {
+        for(int column = 0; column < COLUMNS; column++) {
+            long[] columnValues = values[column];
+            long newTotal = 0L;
+            for(int i = 0; i < ids.length; i++) {
+                columnValues[i] = ids[i] > 0 && quantities[i] > 0
+                        ? quantities[i] * unitValues[ids[i] * COLUMNS + column] : 0L;
+                newTotal += columnValues[i];
+            }
+            totals[column] = newTotal;
+            rankings[column].reset(columnValues);
+        }
+        valued = true;
+    }
+
+    /**
+     * Forces the next update to revalue every slot.
+     */
+    void invalidate() {
+        valued = false;
+    }
+
+    boolean isValued() {
+        return valued;
+    }
+
+    long getTotal(int column) {
+        return totals[column];
+    }
+
+    /**
+     * Adds the (at most) n most valuable stacks in the given column to the list, most valuable first.
+     */
+    void collectTop(int column, int n, List<ValuedStack> out) {
+        int[] slots = new int[n];
+        int count = rankings[column].top(n, slots);
+        for(int i = 0; i < count; i++) {
+            int slot = slots[i];
+            out.add(new ValuedStack(ids[slot], quantities[slot], values[column][slot], null));
+        }
+    }
+
+    int[] getIds() {
+        return ids;
+    }
+
+    int[] getQuantities() {
+        return quantities;
+    }
+
+    private void resize(int size) {
+        if(ids.length != size) {
+            ids = new int[size];
+            quantities = new int[size];
+            for(int column = 0; column < COLUMNS; column++) {
+                values[column] = new long[size];
+            }
+        } else {
+            for(long[] columnValues : values) {
+                Arrays.fill(columnValues, 0L);
+            }
+        }
+    }
+
+    private static boolean holds(int[] itemIds, int itemId) {
+        for(int held : itemIds) {
+            if(held == itemId) return true;
+        }
+        return false;
+    }
+
+    private static long valueOfSlot(int itemId, int quantity, int column, ItemValuer valuer) {
+        // empty slots and bank placeholders never have a value
+        if(itemId <= 0 || quantity <= 0) {
+            return 0L;
+        }
+        return valuer.valueOf(itemId, quantity, column);
+    }
+
+    static long fingerprint(Item[] items) {
+        long hash = 0xcbf29ce484222325L;
+        for(Item item : items) {
+            hash = (hash ^ item.getId()) * 0x100000001b3L;
+            hash = (hash ^ item.getQuantity()) * 0x100000001b3L;
+        }
+        return hash ^ items.length;
+    }
+
+    static long fingerprint(int[] ids, int[] quantities) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < ids.length; i++) {
+            hash = (hash ^ ids[i]) * 0x100000001b3L;
+            hash = (hash ^ quantities[i]) * 0x100000001b3L;
+        }
+        return hash ^ ids.length;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.GameState;
+import net.runelite.api.Item;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.VarbitChanged;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the events the plugin handles to a gzipped file, so a session can be replayed offline by the event
+ * replayer in the jmh source set. Each record is a type byte followed by its fields. The name and prices of an item
+ * are recorded the first time it's seen in a container or valued (e.g. the contents of a storage bag or the runes in
+ * a rune pouch), so a replay values items the same way.
+ * The client thread only collects the records of each tick in memory and hands them to a bounded queue, which the
+ * executor drains into the file. A tick that doesn't fit in the queue because the writer has fallen behind is
+ * dropped instead of blocking the client thread, and a {@link #DROPPED} record tells the replay it's incomplete.
+ * Must only be used from the client thread.
+ */
+@Slf4j
+@Singleton
+class EventRecorder
+{
+    static final int MAGIC = 0x49564552; // "IVER"
+    static final int VERSION = 3;
+
+    static final byte TICK = 0;
+    static final byte CONTAINER = 1;
+    static final byte CHAT = 2;
+    static final byte MENU_OPTION = 3;
+    static final byte VARBIT = 4;
+    static final byte WIDGET_LOADED = 5;
+    static final byte WIDGET_CLOSED = 6;
+    static final byte ITEM = 7;
+    // the number of ticks dropped since the last one written
+    static final byte DROPPED = 8;
+    static final byte ITEM_SPAWNED = 9;
+    static final byte GAME_STATE = 10;
+
+    static final int QUEUE_CAPACITY = 256;
+    private static final File RECORDING_DIR = new File(SessionStore.PLUGIN_DIR, "recordings");
+
+    private final ItemPriceCache priceCache;
+    private final ScheduledExecutorService executor;
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    // set when recording starts, the writer opens it with the first tick
+    private volatile File file = null;
+    // the ticks dropped before it started, which aren't missing from it
+    private volatile long droppedBefore = 0L;
+    // set when recording stops, the writer closes the file once it's written everything queued before
+    private volatile boolean closing = false;
+
+    // client thread only, holding the records of the current tick
+    private final ByteArrayOutputStream tickBytes = new ByteArrayOutputStream(4096);
+    private final DataOutputStream tick = new DataOutputStream(tickBytes);
+    private final BitSet recordedItems = new BitSet();
+    private boolean recording = false;
+
+    // executor only
+    private DataOutputStream out = null;
+    private File opened = null;
+    private long droppedWritten = 0L;
+    private boolean failed = false;
+
+    @Inject
+    EventRecorder(ItemPriceCache priceCache, ScheduledExecutorService executor) {
+        this.priceCache = priceCache;
+        this.executor = executor;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts recording to a new file named after the current time.
+     */
+    void start() {
+        if(recording) return;
+        recording = true;
+        closing = false;
+        droppedBefore = dropped.get();
+        file = new File(RECORDING_DIR, new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".ivr");
+        tickBytes.reset();
+        recordedItems.clear();
+    }
+
+    /**
+     * Stops recording, the ticks queued so far are still written before the file is closed.
+     */
+    void stop() {
+        if(!recording) return;
+        recording = false;
+        enqueue();
+        closing = true;
+        schedule();
+        long total = dropped.get();
+        if(total > 0) log.info("Dropped {} ticks the recording couldn't keep up with", total);
+    }
+
+    void recordTick() {
+        try {
+            tick.writeByte(TICK);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueue();
+    }
+
+    void recordContainer(int containerId, Item[] items) {
+        try {
+            for(Item item : items) {
+                writeItem(item.getId());
+            }
+            tick.writeByte(CONTAINER);
+            tick.writeInt(containerId);
+            tick.writeInt(items.length);
+            for(Item item : items) {
+                tick.writeInt(item.getId());
+                tick.writeInt(item.getQuantity());
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordChat(ChatMessage event) {
+        try {
+            tick.writeByte(CHAT);
+            tick.writeUTF(event.getType().name());
+            tick.writeUTF(nullToEmpty(event.getName()));
+            tick.writeUTF(nullToEmpty(event.getMessage()));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordMenuOption(MenuOptionClicked event) {
+        try {
+            tick.writeByte(MENU_OPTION);
+            tick.writeInt(event.getId());
+            tick.writeInt(event.getItemId());
+            tick.writeUTF(nullToEmpty(event.getMenuOption()));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordVarbit(VarbitChanged event) {
+        try {
+            tick.writeByte(VARBIT);
+            tick.writeInt(event.getVarbitId());
+            tick.writeInt(event.getValue());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordWidget(boolean loaded, int groupId) {
+        try {
+            tick.writeByte(loaded ? WIDGET_LOADED : WIDGET_CLOSED);
+            tick.writeInt(groupId);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records an item that appeared on the ground along with where the player stood at the time, as whether it's
+     * under the player decides if it was dropped.
+     */
+    void recordItemSpawned(ItemSpawned event, Player player) {
+        try {
+            tick.writeByte(ITEM_SPAWNED);
+            tick.writeInt(event.getItem().getId());
+            tick.writeInt(event.getItem().getQuantity());
+            writePoint(event.getTile().getWorldLocation());
+            writePoint(player != null ? player.getWorldLocation() : null);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordGameState(GameState gameState) {
+        try {
+            tick.writeByte(GAME_STATE);
+            tick.writeUTF(gameState.name());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records the name and prices of an item the plugin valued, unless they're already recorded.
+     */
+    void recordItem(int itemId) {
+        try {
+            writeItem(itemId);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of ticks dropped since startup because the writer had fallen behind.
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    // the records are only ever written to memory, so these never actually throw
+    private void writeItem(int itemId) throws IOException {
+        if(itemId <= 0 || recordedItems.get(itemId)) return;
+        recordedItems.set(itemId);
+        tick.writeByte(ITEM);
+        tick.writeInt(itemId);
+        tick.writeUTF(priceCache.getName(itemId));
+        tick.writeInt(priceCache.getGePrice(itemId));
+        tick.writeInt(priceCache.getHaPrice(itemId));
+    }
+
+    private void writePoint(WorldPoint point) throws IOException {
+        tick.writeBoolean(point != null);
+        if(point == null) return;
+        tick.writeInt(point.getX());
+        tick.writeInt(point.getY());
+        tick.writeInt(point.getPlane());
+    }
+
+    private void enqueue() {
+        if(tickBytes.size() == 0) return;
+        if(!queue.offer(tickBytes.toByteArray())) {
+            dropped.incrementAndGet();
+            // the items recorded during the dropped tick are recorded again the next time they're seen
+            recordedItems.clear();
+        }
+        tickBytes.reset();
+        schedule();
+    }
+
+    private void schedule() {
+        if(scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // read first, so every tick queued before recording stopped is written before the file is closed
+        final boolean stopping = closing;
+        byte[] records;
+        while((records = queue.poll()) != null) {
+            write(records);
+        }
+        if(stopping) {
+            close();
+        } else if(out != null) {
+            try {
+                // each batch is flushed, so a recording cut short by a crash can still be replayed up to there
+                out.flush();
+            } catch(IOException e) {
+                fail(e);
+            }
+        }
+        scheduled.set(false);
+
+        // a tick queued after the loop ended but before the flag was cleared would otherwise be stranded
+        if((!queue.isEmpty() || closing && out != null) && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void write(byte[] records) {
+        final File current = file;
+        if(current != opened) {
+            // a new recording
+            close();
+            opened = current;
+            droppedWritten = droppedBefore;
+            failed = false;
+        }
+        // the rest of a recording that failed is useless without the ticks lost with it
+        if(failed) return;
+        try {
+            if(out == null) open(current);
+            writeDropped();
+            out.write(records);
+        } catch(IOException e) {
+            fail(e);
+        }
+    }
+
+    private void open(File file) throws IOException {
+        Files.createDirectories(RECORDING_DIR.toPath());
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), true)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        log.info("Recording events to {}", file);
+    }
+
+    private void writeDropped() throws IOException {
+        long totalDropped = dropped.get();
+        if(totalDropped != droppedWritten) {
+            out.writeByte(DROPPED);
+            out.writeLong(totalDropped - droppedWritten);
+            droppedWritten = totalDropped;
+        }
+    }
+
+    private void close() {
+        if(out == null) return;
+        try {
+            if(!failed) writeDropped();
+            out.close();
+        } catch(IOException e) {
+            if(!failed) log.warn("Unable to finish recording", e);
+        }
+        out = null;
+    }
+
+    private void fail(IOException e) {
+        log.warn("Unable to record events, recording to {} stopped", opened, e);
+        failed = true;
+        close();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Client;
+import net.runelite.api.MenuEntry;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.tooltip.Tooltip;
+import net.runelite.client.ui.overlay.tooltip.TooltipManager;
+import net.runelite.client.util.QuantityFormatter;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+/**
+ * Adds a tooltip to a hovered item with how many of it the player holds in total and what they're worth, if
+ * enabled in the config. The totals come from the plugin's holdings index, so no container is scanned.
+ */
+public class HoldingsTooltipOverlay extends Overlay
+{
+    private final Client client;
+    private final InventoryValueConfig config;
+    // the plugin injects this overlay, so it's looked up lazily
+    private final Provider<InventoryValuePlugin> plugin;
+    private final TooltipManager tooltipManager;
+
+    // the holding is only looked up again when the hovered item changes or a valuation pass ran since, and the
+    // tooltip only rebuilt when the holding changed
+    private int shownItemId = -1;
+    private int shownVersion = -1;
+    private long shownQuantity = -1L;
+    private long shownValue = -1L;
+    private Tooltip tooltip = null;
+
+    @Inject
+    private HoldingsTooltipOverlay(Client client, InventoryValueConfig config, Provider<InventoryValuePlugin> plugin,
+                                   TooltipManager tooltipManager) {
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+        this.client = client;
+        this.config = config;
+        this.plugin = plugin;
+        this.tooltipManager = tooltipManager;
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if(!config.holdingsTooltips() || client.isMenuOpen()) return null;
+
+        final MenuEntry[] menuEntries = client.getMenuEntries();
+        if(menuEntries == null || menuEntries.length == 0) return null;
+        final int itemId = menuEntries[menuEntries.length - 1].getItemId();
+        if(itemId <= 0) return null;
+
+        final int version = plugin.get().getHoldingsVersion();
+        if(itemId != shownItemId || version != shownVersion) {
+            final long quantity = plugin.get().quantityHeld(itemId);
+            final long value = plugin.get().valueHeld(itemId, quantity);
+            if(itemId != shownItemId || quantity != shownQuantity || value != shownValue) {
+                shownQuantity = quantity;
+                shownValue = value;
+                tooltip = new Tooltip("Held: " + QuantityFormatter.formatNumber(quantity) + "</br>Worth: "
+                        + QuantityFormatter.quantityToStackSize(value));
+            }
+            shownItemId = itemId;
+            shownVersion = version;
+        }
+        tooltipManager.add(tooltip);
+        return null;
+    }
+}
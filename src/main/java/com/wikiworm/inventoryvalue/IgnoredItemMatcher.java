@@ -0,0 +1,122 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ignore list compiled from the plugin config. Patterns are either exact item names or names with a leading
+ * and/or trailing '*' wildcard, e.g. "*godsword" or "clue scroll*". Each item id is matched against the patterns
+ * once, after which checking it is a single array lookup. Must only be used from the client thread.
+ */
+@Singleton
+class IgnoredItemMatcher
+{
+    private static final byte UNRESOLVED = 0;
+    private static final byte KEPT = 1;
+    private static final byte IGNORED = 2;
+
+    private final ItemPriceCache priceCache;
+
+    private Set<String> names = new HashSet<>();
+    private String[] prefixes = new String[0];
+    private String[] suffixes = new String[0];
+    private String[] infixes = new String[0];
+    private byte[] resolved = new byte[0];
+
+    @Inject
+    IgnoredItemMatcher(ItemPriceCache priceCache) {
+        this.priceCache = priceCache;
+    }
+
+    /**
+     * Replaces the patterns with the given lowercase ones.
+     */
+    void compile(List<String> patterns) {
+        Set<String> newNames = new HashSet<>();
+        List<String> newPrefixes = new ArrayList<>();
+        List<String> newSuffixes = new ArrayList<>();
+        List<String> newInfixes = new ArrayList<>();
+
+        for(String pattern : patterns) {
+            boolean leading = pattern.startsWith("*");
+            String name = leading ? pattern.substring(1) : pattern;
+            boolean trailing = name.endsWith("*");
+            name = (trailing ? name.substring(0, name.length() - 1) : name).trim();
+            if(name.isEmpty()) continue;
+
+            if(leading && trailing) newInfixes.add(name);
+            else if(leading) newSuffixes.add(name);
+            else if(trailing) newPrefixes.add(name);
+            else newNames.add(name);
+        }
+
+        names = newNames;
+        prefixes = newPrefixes.toArray(new String[0]);
+        suffixes = newSuffixes.toArray(new String[0]);
+        infixes = newInfixes.toArray(new String[0]);
+        Arrays.fill(resolved, UNRESOLVED);
+    }
+
+    boolean isIgnored(int itemId) {
+        if(itemId < 0) {
+            return false;
+        }
+        if(itemId >= resolved.length) {
+            resolved = Arrays.copyOf(resolved, Integer.highestOneBit(itemId) << 1);
+        }
+        if(resolved[itemId] == UNRESOLVED) {
+            resolved[itemId] = matches(priceCache.getName(itemId)) ? IGNORED : KEPT;
+        }
+        return resolved[itemId] == IGNORED;
+    }
+
+    boolean isEmpty() {
+        return names.isEmpty() && prefixes.length == 0 && suffixes.length == 0 && infixes.length == 0;
+    }
+
+    private boolean matches(String name) {
+        if(names.contains(name)) return true;
+        for(String prefix : prefixes) {
+            if(name.startsWith(prefix)) return true;
+        }
+        for(String suffix : suffixes) {
+            if(name.endsWith(suffix)) return true;
+        }
+        for(String infix : infixes) {
+            if(name.contains(infix)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing map from int keys to long values, without boxing either. A key whose value drops to 0 is
+ * removed, so {@link #get(int)} returns 0 for any key that isn't held.
+ */
+class IntLongMap
+{
+    interface EntryConsumer
+    {
+        void accept(int key, long value);
+    }
+
+    // never a valid item id
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size = 0;
+
+    IntLongMap() {
+        this(16);
+    }
+
+    IntLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    long get(int key) {
+        for(int index = indexOf(key); keys[index] != EMPTY; index = (index + 1) & mask) {
+            if(keys[index] == key) return values[index];
+        }
+        return 0L;
+    }
+
+    /**
+     * Adds the given delta to the value of a key, removing the key if its value becomes 0.
+     */
+    void add(int key, long delta) {
+        if(delta == 0L) return;
+        int index = indexOf(key);
+        for(; keys[index] != EMPTY; index = (index + 1) & mask) {
+            if(keys[index] != key) continue;
+            values[index] += delta;
+            if(values[index] == 0L) removeAt(index);
+            return;
+        }
+        insertAt(index, key, delta);
+    }
+
+    /**
+     * Sets the value of a key, setting it to 0 removes it.
+     */
+    void put(int key, long value) {
+        int index = indexOf(key);
+        for(; keys[index] != EMPTY; index = (index + 1) & mask) {
+            if(keys[index] != key) continue;
+            if(value == 0L) removeAt(index);
+            else values[index] = value;
+            return;
+        }
+        if(value != 0L) insertAt(index, key, value);
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0L);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for(int i = 0; i < keys.length; i++) {
+            if(keys[i] != EMPTY) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    private void insertAt(int index, int key, long value) {
+        keys[index] = key;
+        values[index] = value;
+        // keep the table at most half full so probe runs stay short
+        if(++size * 2 > keys.length) grow();
+    }
+
+    private void removeAt(int index) {
+        // shift back every entry in the probe run that may no longer be reachable past the hole
+        int hole = index;
+        for(int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = indexOf(keys[next]);
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = 0L;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY) continue;
+            int index = indexOf(oldKeys[i]);
+            while(keys[index] != EMPTY) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private int indexOf(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
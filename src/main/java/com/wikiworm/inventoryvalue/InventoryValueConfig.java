@@ -3,6 +3,7 @@ package com.wikiworm.inventoryvalue;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
 
 @ConfigGroup("inventoryValue")
 public interface InventoryValueConfig extends Config
@@ -14,6 +15,20 @@ public interface InventoryValueConfig extends Config
     )
     default boolean useHighAlchemyValue() { return false; }
 
+    @ConfigItem(
+            keyName = "priceSource",
+            name = "Price source",
+            description = "Value items at their GE value, the highest of their GE and HA values, or at your own prices from .runelite/inventory-value/custom-prices.txt. Not used with the High Alchemy value."
+    )
+    default PriceSourceType priceSource() { return PriceSourceType.GRAND_EXCHANGE; }
+
+    @ConfigItem(
+            keyName = "displayBothValues",
+            name = "Display both values",
+            description = "Show the inventory value at both the price source and High Alchemy value."
+    )
+    default boolean displayBothValues() { return false; }
+
     @ConfigItem(
             keyName = "ignoreCoins",
             name = "Ignore Coins",
@@ -24,7 +39,7 @@ public interface InventoryValueConfig extends Config
     @ConfigItem(
             keyName = "ignoreItems",
             name = "Ignore Items",
-            description = "Ignore defined items in inventory. By default, no items are ignored."
+            description = "Ignore defined items in inventory, separated by commas. Use * at the start or end of a name as a wildcard. By default, no items are ignored."
     )
     default String ignoreItems() { return ""; }
 
@@ -34,4 +49,61 @@ public interface InventoryValueConfig extends Config
             description = "Calculate bank and inventory profit change."
     )
     default boolean displayProfit() { return false; }
-}
\ No newline at end of file
+
+    @ConfigItem(
+            keyName = "displayProfitRates",
+            name = "Display profit rates",
+            description = "Show the profit per hour and the profit made over the last 5, 15 and 60 minutes."
+    )
+    default boolean displayProfitRates() { return false; }
+
+    @ConfigItem(
+            keyName = "displayNetWorth",
+            name = "Display net worth",
+            description = "Show the combined value of your inventory, equipment, bank, looting bag and seed vault."
+    )
+    default boolean displayNetWorth() { return false; }
+
+    @Range(max = StackRanking.MAX_TOP)
+    @ConfigItem(
+            keyName = "topStacks",
+            name = "Most valuable stacks",
+            description = "Show this many of your most valuable stacks across the inventory, equipment, bank, looting bag and seed vault. 0 hides them."
+    )
+    default int topStacks() { return 0; }
+
+    @ConfigItem(
+            keyName = "holdingsTooltips",
+            name = "Show holdings on hover",
+            description = "Show how many of a hovered item you hold across your inventory, equipment, bank, rune pouch and storage bags, and what they're worth."
+    )
+    default boolean holdingsTooltips() { return false; }
+
+    @ConfigItem(
+            keyName = "backgroundBankValuation",
+            name = "Value bank in background",
+            description = "Calculate the bank value off the client thread. The bank value may be shown a tick later."
+    )
+    default boolean backgroundBankValuation() { return true; }
+
+    @ConfigItem(
+            keyName = "debugMetrics",
+            name = "Show debug metrics",
+            description = "Show how long the plugin spends valuing containers, parsing chat and rendering."
+    )
+    default boolean debugMetrics() { return false; }
+
+    @ConfigItem(
+            keyName = "recordEvents",
+            name = "Record events",
+            description = "Record the events the plugin handles to .runelite/inventory-value/recordings, for replaying offline."
+    )
+    default boolean recordEvents() { return false; }
+
+    @ConfigItem(
+            keyName = "exportSession",
+            name = "Export session",
+            description = "Write the value, profit and item changes of every tick to .runelite/inventory-value/exports, for analysing offline."
+    )
+    default boolean exportSession() { return false; }
+}
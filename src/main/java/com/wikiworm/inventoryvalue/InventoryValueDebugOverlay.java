@@ -0,0 +1,89 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.PanelComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+/**
+ * Shows the median, 99th percentile and maximum of each {@link PluginMetrics.Metric}, if enabled in the config.
+ */
+public class InventoryValueDebugOverlay extends Overlay
+{
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    private final InventoryValueConfig config;
+    private final PluginMetrics metrics;
+    private final PanelComponent panelComponent = new PanelComponent();
+    private final LineComponent[] lines = new LineComponent[PluginMetrics.metrics().length];
+    private long refreshedAt = 0L;
+
+    @Inject
+    private InventoryValueDebugOverlay(InventoryValueConfig config, PluginMetrics metrics) {
+        setPosition(OverlayPosition.TOP_LEFT);
+        this.config = config;
+        this.metrics = metrics;
+
+        panelComponent.setPreferredSize(new Dimension(260, 0));
+        panelComponent.getChildren().add(TitleComponent.builder()
+                .text("Inventory Value p50 / p99 / max")
+                .color(Color.GREEN)
+                .build());
+        for(PluginMetrics.Metric metric : PluginMetrics.metrics()) {
+            lines[metric.ordinal()] = LineComponent.builder()
+                    .left(metric.getLabel() + ":")
+                    .leftColor(Color.WHITE)
+                    .rightColor(Color.YELLOW)
+                    .build();
+            panelComponent.getChildren().add(lines[metric.ordinal()]);
+        }
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if(!config.debugMetrics()) return null;
+
+        // percentiles are only recomputed once a second, not every frame
+        long now = System.nanoTime();
+        if(now - refreshedAt >= REFRESH_NANOS) {
+            refreshedAt = now;
+            for(PluginMetrics.Metric metric : PluginMetrics.metrics()) {
+                lines[metric.ordinal()].setRight(metrics.summarize(metric));
+            }
+        }
+        return panelComponent.render(graphics);
+    }
+}
@@ -30,96 +30,269 @@ package com.wikiworm.inventoryvalue;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
 import net.runelite.client.ui.overlay.components.LineComponent;
 import net.runelite.client.ui.overlay.components.PanelComponent;
 import net.runelite.client.ui.overlay.components.TitleComponent;
 import net.runelite.client.util.QuantityFormatter;
 
 import javax.inject.Inject;
-import javax.swing.SwingUtilities;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics2D;
+import java.util.List;
 
 @Slf4j
 public class InventoryValueOverlay extends Overlay
 {
-    private Long inventoryValue = 0L;
-    private Long startingValue = Long.MIN_VALUE;
-    private Long profitInvValue = 0L;
-    private Long profitBankValue = 0L;
-    private Color profitInvColor = Color.GREEN;
-    private Color profitBankColor = Color.GREEN;
+    private static final String TITLE_TEXT = "Inventory Value";
+    private static final String HA_PRICE_TEXT = "HA Price:";
+    private static final String GE_PRICE_TEXT = "GE Price:";
+    private static final String HIGHEST_PRICE_TEXT = "Max Price:";
+    private static final String CUSTOM_PRICE_TEXT = "Custom Price:";
+
+    // written by the plugin after each valuation pass and read once per frame
+    private volatile InventoryValueSnapshot snapshot = InventoryValueSnapshot.EMPTY;
+    // updated in place by the plugin every tick, apart from the snapshot so they don't cost a new one per tick. Both
+    // run on the client thread
+    private final ProfitRates rates = new ProfitRates();
     private final InventoryValueConfig inventoryValueConfig;
+    private final PluginMetrics metrics;
     private final PanelComponent panelComponent = new PanelComponent();
 
+    // the panel's components are kept between frames and only touched when what they show changes
+    private final TitleComponent titleComponent = TitleComponent.builder()
+            .text(TITLE_TEXT)
+            .color(Color.GREEN)
+            .build();
+    private final LineComponent valueLine = LineComponent.builder()
+            .left(GE_PRICE_TEXT)
+            .leftColor(Color.WHITE)
+            .right(QuantityFormatter.quantityToStackSize(0L))
+            .rightColor(Color.YELLOW)
+            .build();
+    private final LineComponent otherValueLine = LineComponent.builder()
+            .left(HA_PRICE_TEXT)
+            .leftColor(Color.WHITE)
+            .right(QuantityFormatter.quantityToStackSize(0L))
+            .rightColor(Color.YELLOW)
+            .build();
+    private final LineComponent profitInvLine = LineComponent.builder()
+            .left("Profit (inv):")
+            .leftColor(Color.WHITE)
+            .right(QuantityFormatter.quantityToStackSize(0L))
+            .rightColor(Color.GREEN)
+            .build();
+    private final LineComponent profitBankLine = LineComponent.builder()
+            .left("Profit (banked):")
+            .leftColor(Color.WHITE)
+            .right(QuantityFormatter.quantityToStackSize(0L))
+            .rightColor(Color.GREEN)
+            .build();
+    private final LineComponent netWorthLine = LineComponent.builder()
+            .left("Net worth:")
+            .leftColor(Color.WHITE)
+            .right(QuantityFormatter.quantityToStackSize(0L))
+            .rightColor(Color.YELLOW)
+            .build();
+    private final LineComponent perHourLine = rateLine("Profit/hr:");
+    private final LineComponent last5MinutesLine = rateLine("Last 5 min:");
+    private final LineComponent last15MinutesLine = rateLine("Last 15 min:");
+    private final LineComponent last60MinutesLine = rateLine("Last 60 min:");
+    private final LineComponent topStacksLine = LineComponent.builder()
+            .left("Most valuable:")
+            .leftColor(Color.WHITE)
+            .build();
+    private final LineComponent[] stackLines = new LineComponent[StackRanking.MAX_TOP];
+    private final Dimension preferredSize = new Dimension();
+
+    private InventoryValueSnapshot shownSnapshot = InventoryValueSnapshot.EMPTY;
+    private int shownRatesVersion = 0;
+    private int shownColumn = ContainerValuation.GE;
+    private PriceSourceType shownPriceSource = PriceSourceType.GRAND_EXCHANGE;
+    private boolean shownBothValues = false;
+    private boolean shownProfit = false;
+    private boolean shownRates = false;
+    private boolean shownNetWorth = false;
+    private int shownStacks = 0;
+    private Font shownFont = null;
+
     @Inject
-    private InventoryValueOverlay(InventoryValueConfig config) {
+    private InventoryValueOverlay(InventoryValueConfig config, PluginMetrics metrics) {
         setPosition(OverlayPosition.ABOVE_CHATBOX_RIGHT);
         this.inventoryValueConfig = config;
+        this.metrics = metrics;
+        panelComponent.setPreferredSize(preferredSize);
+        for(int i = 0; i < stackLines.length; i++) {
+            stackLines[i] = LineComponent.builder()
+                    .leftColor(Color.WHITE)
+                    .rightColor(Color.YELLOW)
+                    .build();
+        }
+        layout();
     }
 
     @Override
     public Dimension render(Graphics2D graphics) {
-        String titleText = "Inventory Value";
-        String valueString = inventoryValueConfig.useHighAlchemyValue() ? "HA Price:" : "GE Price:";
-        String profitInvString = "Profit (inv):";
-        String profitBankString = "Profit (banked):";
-
-        panelComponent.getChildren().clear();
+        final long start = System.nanoTime();
+        try {
+            return renderPanel(graphics);
+        } finally {
+            metrics.recordSince(PluginMetrics.Metric.OVERLAY_RENDER, start);
+        }
+    }
 
-        panelComponent.getChildren().add(TitleComponent.builder()
-                .text(titleText)
-                .color(Color.GREEN)
-                .build());
+    private Dimension renderPanel(Graphics2D graphics) {
+        if(graphics.getFont() != shownFont) {
+            shownFont = graphics.getFont();
+            preferredSize.width = graphics.getFontMetrics().stringWidth(TITLE_TEXT) + 30;
+        }
 
-        panelComponent.setPreferredSize(new Dimension(
-                graphics.getFontMetrics().stringWidth(titleText) + 30,
-                0
-        ));
+        final InventoryValueSnapshot current = snapshot;
+        // the label follows the column of the values shown, not the config, so the two never mismatch
+        PriceSourceType priceSource = inventoryValueConfig.priceSource();
+        if(current.getColumn() != shownColumn || priceSource != shownPriceSource) {
+            shownColumn = current.getColumn();
+            shownPriceSource = priceSource;
+            valueLine.setLeft(priceText(priceSource, shownColumn));
+            otherValueLine.setLeft(priceText(priceSource, otherColumn(shownColumn)));
+        }
 
-        panelComponent.getChildren().add(LineComponent.builder()
-                .left(valueString)
-                .leftColor(Color.WHITE)
-                .right(QuantityFormatter.quantityToStackSize(inventoryValue))
-                .rightColor(Color.YELLOW)
-                .build());
+        boolean displayBothValues = inventoryValueConfig.displayBothValues();
+        boolean displayProfit = inventoryValueConfig.displayProfit();
+        boolean displayRates = inventoryValueConfig.displayProfitRates();
+        boolean displayNetWorth = inventoryValueConfig.displayNetWorth();
+        int stacks = Math.min(inventoryValueConfig.topStacks(), current.getTopStacks().size());
+        if(displayBothValues != shownBothValues || displayProfit != shownProfit || displayRates != shownRates
+                || displayNetWorth != shownNetWorth || stacks != shownStacks) {
+            shownBothValues = displayBothValues;
+            shownProfit = displayProfit;
+            shownRates = displayRates;
+            shownNetWorth = displayNetWorth;
+            shownStacks = stacks;
+            layout();
+        }
 
-        if(inventoryValueConfig.displayProfit()) {
-            panelComponent.getChildren().add(LineComponent.builder()
-                    .left(profitInvString)
-                    .leftColor(Color.WHITE)
-                    .right(QuantityFormatter.quantityToStackSize(profitInvValue))
-                    .rightColor(profitInvColor)
-                    .build());
+        if(current != shownSnapshot) {
+            if(current.getInventoryValue() != shownSnapshot.getInventoryValue()) {
+                valueLine.setRight(QuantityFormatter.quantityToStackSize(current.getInventoryValue()));
+            }
+            long otherValue = current.getInventoryValue(otherColumn(current.getColumn()));
+            if(otherValue != shownSnapshot.getInventoryValue(otherColumn(shownSnapshot.getColumn()))) {
+                otherValueLine.setRight(QuantityFormatter.quantityToStackSize(otherValue));
+            }
+            if(current.getProfitInvValue() != shownSnapshot.getProfitInvValue()) {
+                profitInvLine.setRight(QuantityFormatter.quantityToStackSize(current.getProfitInvValue()));
+                profitInvLine.setRightColor(current.getProfitInvColor());
+            }
+            if(current.getProfitBankValue() != shownSnapshot.getProfitBankValue()) {
+                profitBankLine.setRight(QuantityFormatter.quantityToStackSize(current.getProfitBankValue()));
+                profitBankLine.setRightColor(current.getProfitBankColor());
+            }
+            if(current.getNetWorth() != shownSnapshot.getNetWorth()) {
+                netWorthLine.setRight(QuantityFormatter.quantityToStackSize(current.getNetWorth()));
+            }
+            if(current.getTopStacks() != shownSnapshot.getTopStacks()) {
+                List<ValuedStack> topStacks = current.getTopStacks();
+                for(int i = 0; i < topStacks.size() && i < stackLines.length; i++) {
+                    ValuedStack stack = topStacks.get(i);
+                    stackLines[i].setLeft(stack.getQuantity() > 1
+                            ? stack.getName() + " x " + QuantityFormatter.quantityToStackSize(stack.getQuantity())
+                            : stack.getName());
+                    stackLines[i].setRight(QuantityFormatter.quantityToStackSize(stack.getValue()));
+                }
+            }
+            shownSnapshot = current;
         }
 
-        if(inventoryValueConfig.displayProfit()) {
-            panelComponent.getChildren().add(LineComponent.builder()
-                    .left(profitBankString)
-                    .leftColor(Color.WHITE)
-                    .right(QuantityFormatter.quantityToStackSize(profitBankValue))
-                    .rightColor(profitBankColor)
-                    .build());
+        final int ratesVersion = rates.getVersion();
+        if(ratesVersion != shownRatesVersion) {
+            shownRatesVersion = ratesVersion;
+            setProfit(perHourLine, rates.getPerHour());
+            setProfit(last5MinutesLine, rates.getLast5Minutes());
+            setProfit(last15MinutesLine, rates.getLast15Minutes());
+            setProfit(last60MinutesLine, rates.getLast60Minutes());
         }
 
         return panelComponent.render(graphics);
     }
 
-
-    public void updateInventoryValue(final long newInventoryValue, final long newProfitInvValue, final long newProfitBankValue) {
-        final Color updateInvProfitColor = newProfitInvValue >= 0 ? Color.GREEN : Color.RED;
-        final Color updateBankProfitColor = newProfitBankValue >= 0 ? Color.GREEN : Color.RED;
-        SwingUtilities.invokeLater(() -> inventoryValue = newInventoryValue);
-        if(inventoryValueConfig.displayProfit()) {
-            SwingUtilities.invokeLater(() -> {
-                profitBankValue = newProfitBankValue;
-                profitInvValue = newProfitInvValue;
-                profitInvColor = updateInvProfitColor;
-                profitBankColor = updateBankProfitColor;
-            });
+    private void layout() {
+        List<LayoutableRenderableEntity> children = panelComponent.getChildren();
+        children.clear();
+        children.add(titleComponent);
+        children.add(valueLine);
+        if(shownBothValues) {
+            children.add(otherValueLine);
+        }
+        if(shownProfit) {
+            children.add(profitInvLine);
+            children.add(profitBankLine);
+        }
+        if(shownRates) {
+            children.add(perHourLine);
+            children.add(last5MinutesLine);
+            children.add(last15MinutesLine);
+            children.add(last60MinutesLine);
+        }
+        if(shownNetWorth) {
+            children.add(netWorthLine);
         }
+        if(shownStacks > 0) {
+            children.add(topStacksLine);
+            for(int i = 0; i < shownStacks; i++) {
+                children.add(stackLines[i]);
+            }
+        }
+    }
+
+    private static void setProfit(LineComponent line, long profit) {
+        line.setRight(QuantityFormatter.quantityToStackSize(profit));
+        line.setRightColor(ProfitRates.colorOf(profit));
+    }
+
+    private static String priceText(PriceSourceType priceSource, int column) {
+        if(column == ContainerValuation.HA) return HA_PRICE_TEXT;
+        if(priceSource == PriceSourceType.HIGHEST) return HIGHEST_PRICE_TEXT;
+        if(priceSource == PriceSourceType.CUSTOM) return CUSTOM_PRICE_TEXT;
+        return GE_PRICE_TEXT;
     }
 
+    private static int otherColumn(int column) {
+        return column == ContainerValuation.HA ? ContainerValuation.GE : ContainerValuation.HA;
+    }
+
+    private static LineComponent rateLine(String label) {
+        return LineComponent.builder()
+                .left(label)
+                .leftColor(Color.WHITE)
+                .right(QuantityFormatter.quantityToStackSize(0L))
+                .rightColor(Color.GREEN)
+                .build();
+    }
 
-}
\ No newline at end of file
+
+    public void updateInventoryValue(final int column, final long[] newInventoryValues, final long newProfitInvValue,
+                                     final long newProfitBankValue, final long[] newNetWorths,
+                                     final List<ValuedStack> newTopStacks) {
+        snapshot = new InventoryValueSnapshot(column, newInventoryValues, newProfitInvValue, newProfitBankValue,
+                newNetWorths, newTopStacks);
+    }
+
+    /**
+     * Shows the values of the given column, which the snapshot already holds.
+     */
+    public void updateColumn(final int column) {
+        snapshot = snapshot.withColumn(column);
+    }
+
+    public void updateProfitRates(final long perHour, final long last5Minutes, final long last15Minutes,
+                                  final long last60Minutes) {
+        rates.update(perHour, last5Minutes, last15Minutes, last60Minutes);
+    }
+
+    InventoryValueSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
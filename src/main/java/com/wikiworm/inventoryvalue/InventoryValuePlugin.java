@@ -33,28 +33,56 @@ import net.runelite.api.*;
 import net.runelite.api.annotations.Varbit;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemSpawned;
 import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.chat.ChatColorType;
+import net.runelite.client.chat.ChatMessageBuilder;
 import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.task.Schedule;
 import net.runelite.client.ui.overlay.OverlayManager;
-import net.runelite.http.api.item.ItemPrice;
+import net.runelite.client.util.QuantityFormatter;
 
 import javax.inject.Inject;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.LongStream;
-
-import static net.runelite.api.ItemID.*;
 
 @PluginDescriptor(name = "Inventory Value")
 @Slf4j
 public class InventoryValuePlugin extends Plugin
 {
     private static final int NUM_SLOTS = 4;
+    private static final int DIRTY_INVENTORY = TrackedContainer.INVENTORY.getBit();
+    private static final int DIRTY_BANK = TrackedContainer.BANK.getBit();
+    // containers that are only tracked for the net worth
+    private static final int DIRTY_OTHER = TrackedContainer.EQUIPMENT.getBit() | TrackedContainer.LOOTING_BAG.getBit()
+            | TrackedContainer.SEED_VAULT.getBit();
+    // item values were invalidated, so value changes aren't transfers
+    private static final int DIRTY_REVALUED = 1 << TrackedContainer.all().length;
+    private static final String CHECK_OPTION = "Check";
+    private static final String EMPTY_OPTION = "Empty";
+    // enough changes to hold an hour of profit changing every tick
+    private static final int PROFIT_HISTORY_SIZE = 1 << 13;
+    private static final long FIVE_MINUTES = 5 * 60_000L;
+    private static final long FIFTEEN_MINUTES = 15 * 60_000L;
+    private static final long SIXTY_MINUTES = 60 * 60_000L;
+    // about 6 seconds
+    private static final int SESSION_SAVE_TICKS = 10;
+    private static final Comparator<ValuedStack> BY_VALUE_DESCENDING =
+            Comparator.comparingLong(ValuedStack::getValue).reversed();
     private static final int[] AMOUNT_VARBITS = {
             Varbits.RUNE_POUCH_AMOUNT1, Varbits.RUNE_POUCH_AMOUNT2, Varbits.RUNE_POUCH_AMOUNT3, Varbits.RUNE_POUCH_AMOUNT4
     };
@@ -80,60 +108,566 @@ public class InventoryValuePlugin extends Plugin
     @Inject
     private InventoryValueOverlay overlay;
 
-    private HashMap<ItemPrice, Integer> _herbs  = new HashMap<ItemPrice, Integer>();
-    private HashMap<ItemPrice, Integer> _gems   = new HashMap<ItemPrice, Integer>();
-    private HashMap<ItemPrice, Integer> _seeds  = new HashMap<ItemPrice, Integer>();
+    @Inject
+    private InventoryValueDebugOverlay debugOverlay;
+
+    @Inject
+    private HoldingsTooltipOverlay tooltipOverlay;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private EventRecorder recorder;
+
+    @Inject
+    private SessionExporter exporter;
+
+    @Inject
+    private ItemPriceCache priceCache;
+
+    @Inject
+    private PriceSources priceSources;
+
+    @Inject
+    private IgnoredItemMatcher ignoredItems;
+
+    @Inject
+    private BankValuator bankValuator;
+
+    @Inject
+    private ChatMessageDispatcher chatMessageDispatcher;
+
+    @Inject
+    private ItemNameIndex itemNameIndex;
+
+    @Inject
+    private SessionStore sessionStore;
+
+    @Inject
+    private PriceSnapshotStore priceSnapshotStore;
+
+    @Inject
+    private ClientThread clientThread;
+
+    private final StorageBags _bags = new StorageBags();
+    // storage bag contents are valued at their price alone
+    private final ContainerValuation.ItemValuer _bagValuer =
+            (itemId, quantity, column) -> (long) quantity * priceOf(itemId, column);
     private long _oldInventoryValue     = Long.MIN_VALUE;
     private long _oldProfitInvValue     = Long.MIN_VALUE;
     private long _originalBankValue     = Long.MIN_VALUE;
     private long _lastBankValue         = Long.MIN_VALUE;
+    private long _profitValue           = 0L;
 
-    private HashMap<String, ItemPrice> _gemLookup = new HashMap<>();
+    private final ValueHistory _profitHistory = new ValueHistory(PROFIT_HISTORY_SIZE);
+
+    private final ContainerTracker _containers = new ContainerTracker();
+    // items valued during the current valuation pass
+    private int _itemsValued = 0;
+    private final ContainerValuation.ItemValuer _valuer = (itemId, quantity, column) -> {
+        if(column == ContainerValuation.GE) _itemsValued++;
+        return calculateItemValue(itemId, quantity, column);
+    };
 
-    private boolean _depositing = false;
-    private long _preDepositInventoryValue = 0L;
+    private boolean _depositBoxOpen = false;
+    // the value deposited through the deposit box in each column since the bank was last seen, which the bank's
+    // subtotal can't include until it's seen again
+    private final long[] _pendingDeposits = new long[ContainerValuation.COLUMNS];
+    // the pending deposits the bank contents last submitted to the background valuation include, which are dropped
+    // once its subtotals are applied, and the submission's sequence number, 0 if there's none in flight
+    private final long[] _bankedDeposits = new long[ContainerValuation.COLUMNS];
+    private int _bankedDepositsSequence = 0;
+    // the net decrease in quantity of each item across the carried containers during a deposit box pass
+    private final IntLongMap _depositedItems = new IntLongMap();
+    // items that appeared under the player while the deposit box was open, i.e. were dropped rather than deposited
+    private final IntLongMap _droppedItems = new IntLongMap();
+
+    // the value of the rune pouch contents in each column, Long.MIN_VALUE until valued again after a change
+    private final long[] _runePouchValues = { Long.MIN_VALUE, Long.MIN_VALUE };
+
+    // the account the session state is saved for, -1 until logged in
+    private long _sessionAccount = -1L;
+    // whether the saved state of that account was applied, until then nothing is saved over it
+    private boolean _sessionRestored = false;
+    // whether the session changed since it was last saved, and the ticks since then, see onGameTick
+    private boolean _sessionDirty = false;
+    private int _ticksSinceSave = 0;
+
+    // the values last published to the overlay, see publish
+    private int _publishedColumn = -1;
+    private long[] _publishedValues = new long[ContainerValuation.COLUMNS];
+    private long _publishedProfitInv = 0L;
+    private long _publishedProfitBank = 0L;
+    private long[] _publishedNetWorths = new long[ContainerValuation.COLUMNS];
+    private List<ValuedStack> _publishedTopStacks = Collections.emptyList();
+    // the stacks ranked for the overlay, reused between passes
+    private final List<ValuedStack> _stackCandidates = new ArrayList<>();
+
+    // bumped after every valuation pass, so what's held is only looked up again once it may have changed
+    private volatile int _holdingsVersion = 0;
+
+    // containers changed since the last valuation pass, see onGameTick
+    private int _dirty = 0;
+
+    // set at the login screen and while hopping, so only the LOGGED_IN that ends a login (not a loading screen) counts
+    private boolean _awaitingLogin = true;
 
     @Override
     protected void startUp() throws Exception {
         overlayManager.add(overlay);
-
-        _gemLookup.put("Sapphires",itemManager.search("Uncut sapphire").get(0));
-        _gemLookup.put("Emeralds",itemManager.search("Uncut emerald").get(0));
-        _gemLookup.put("Rubies",itemManager.search("Uncut ruby").get(0));
-        _gemLookup.put("Diamonds",itemManager.search("Uncut diamond").get(0));
-        _gemLookup.put("Dragonstones",itemManager.search("Uncut dragonstone").get(0));
+        overlayManager.add(debugOverlay);
+        overlayManager.add(tooltipOverlay);
+        // read here, off the client thread, but only handed to the price cache on it
+        final PriceSnapshot priceSnapshot = priceSnapshotStore.load();
+        itemNameIndex.build();
+        // startup runs off the client thread, which owns the valuation state
+        clientThread.invokeLater(() -> {
+            priceCache.setSnapshot(priceSnapshot);
+            selectPriceSource();
+            compileIgnoredItems();
+            selectColumn();
+            updateRecording();
+            updateExport();
+            // enabled while logged in, so there won't be a login to restore the session on
+            if(client.getGameState() == GameState.LOGGED_IN) {
+                _awaitingLogin = false;
+                restoreSession();
+            }
+        });
     }
 
     @Override
     protected void shutDown() throws Exception {
         overlayManager.remove(overlay);
+        overlayManager.remove(debugOverlay);
+        overlayManager.remove(tooltipOverlay);
+        clientThread.invokeLater(this::flushSession);
+        clientThread.invokeLater(recorder::stop);
+        clientThread.invokeLater(this::stopExport);
+        for(PluginMetrics.Metric metric : PluginMetrics.metrics()) {
+            log.info("{}: {} samples, p50 / p99 / max {}", metric.getLabel(), metrics.get(metric).getCount(),
+                    metrics.summarize(metric));
+        }
     }
 
     @Subscribe
     public void onGameStateChanged(GameStateChanged gameStateChanged) {
+        if(recorder.isRecording()) recorder.recordGameState(gameStateChanged.getGameState());
+        switch(gameStateChanged.getGameState()) {
+            case LOGGED_IN:
+                // also sent after every loading screen, which leaves the prices as they were
+                if(!_awaitingLogin) return;
+                _awaitingLogin = false;
+                // prices may have been (re)loaded while logged out
+                refreshPrices();
+                restoreSession();
+                break;
+            case LOGIN_SCREEN:
+                _awaitingLogin = true;
+                flushSession();
+                break;
+            case HOPPING:
+                _awaitingLogin = true;
+                break;
+        }
+    }
+
+    private void updateRecording() {
+        if(config.recordEvents()) recorder.start();
+        else recorder.stop();
+    }
+
+    private void updateExport() {
+        if(!config.exportSession()) {
+            stopExport();
+        } else if(!exporter.isExporting()) {
+            exporter.start();
+            _containers.setTrackingChanges(true);
+        }
+    }
+
+    private void stopExport() {
+        exporter.stop();
+        _containers.setTrackingChanges(false);
+    }
+
+    private void restoreSession() {
+        final long accountHash = client.getAccountHash();
+        if(accountHash == -1L || accountHash == _sessionAccount) return;
+        _sessionAccount = accountHash;
+        _sessionRestored = false;
+        // the file is read on the executor, the state it holds is only applied on the client thread
+        sessionStore.load(accountHash, state -> clientThread.invokeLater(() -> applySession(accountHash, state)));
+    }
+
+    private void applySession(long accountHash, SessionState state) {
+        // logged into another account while the file was read
+        if(accountHash != _sessionAccount) return;
+        _sessionRestored = true;
+
+        // a new account starts from scratch
+        _originalBankValue = state != null ? state.getOriginalBankValue() : Long.MIN_VALUE;
+        _lastBankValue     = state != null ? state.getLastBankValue() : Long.MIN_VALUE;
+        _oldInventoryValue = state != null ? state.getInventoryValue() : Long.MIN_VALUE;
+        _oldProfitInvValue = state != null ? state.getProfitInvValue() : Long.MIN_VALUE;
+        _bags.clear();
+        _containers.clear();
+        Arrays.fill(_pendingDeposits, 0L);
+        _bankedDepositsSequence = 0;
+        _profitHistory.clear();
+        if(state != null) {
+            for(StorageBag bag : StorageBag.all()) {
+                state.getBag(bag).forEach((itemId, quantity) -> _bags.put(bag, itemId, quantity, _bagValuer));
+            }
+            // value the closed containers from their saved contents, so the net worth is complete on the first tick.
+            // The bank is left to the background valuation, its subtotals are picked up in onGameTick
+            for(TrackedContainer container : TrackedContainer.all()) {
+                Item[] items = state.getContents(container);
+                if(items == null) continue;
+                if(container == TrackedContainer.BANK) {
+                    _containers.remember(container, items);
+                    bankValuator.submit(items, _valuer);
+                } else {
+                    _containers.update(container, items, _valuer);
+                }
+            }
+        }
+        markDirty(DIRTY_INVENTORY | DIRTY_OTHER | DIRTY_REVALUED);
+    }
+
+    /**
+     * Saves the session now if it changed, and writes it without waiting for the store's delay.
+     */
+    private void flushSession() {
+        if(_sessionDirty) saveSession();
+        sessionStore.flushNow();
+    }
+
+    private void saveSession() {
+        _sessionDirty = false;
+        _ticksSinceSave = 0;
+        if(_sessionAccount == -1L || !_sessionRestored) return;
+
+        Item[][] contents = new Item[TrackedContainer.all().length][];
+        for(TrackedContainer container : TrackedContainer.all()) {
+            contents[container.ordinal()] = _containers.getContents(container);
+        }
+        IntLongMap[] bags = new IntLongMap[StorageBag.all().length];
+        for(StorageBag bag : StorageBag.all()) {
+            bags[bag.ordinal()] = _bags.getContents(bag);
+        }
+        sessionStore.save(_sessionAccount, new SessionState(_originalBankValue, _lastBankValue, _oldInventoryValue,
+                _oldProfitInvValue, bags, contents));
+    }
+
+    // the item manager reloads its prices every 30 minutes
+    @Schedule(period = 30, unit = ChronoUnit.MINUTES)
+    public void onPriceRefresh() {
+        clientThread.invokeLater(this::refreshPrices);
+    }
+
+    private void refreshPrices() {
+        savePriceSnapshot();
+        priceCache.invalidate();
+        // also rereads the custom prices
+        selectPriceSource();
+        repriceItems();
+    }
+
+    private void selectPriceSource() {
+        priceSources.select(config.priceSource());
+        if(config.priceSource() == PriceSourceType.CUSTOM) loadCustomPrices();
+    }
+
+    private void loadCustomPrices() {
+        // the file is read on the executor, until the prices read are applied the last ones are kept
+        priceSources.readCustomPrices(prices -> clientThread.invokeLater(() -> {
+            priceSources.setCustomPrices(prices);
+            repriceItems();
+        }));
+    }
+
+    private void savePriceSnapshot() {
+        // keep the prices used so far for the next startup
+        PriceSnapshot snapshot = priceCache.toSnapshot();
+        if(snapshot == priceCache.getSnapshot()) return;
+        priceCache.setSnapshot(snapshot);
+        priceSnapshotStore.save(snapshot);
     }
 
     @Subscribe
     public void onItemContainerChanged(ItemContainerChanged event) {
-        updateInventoryValue(event);
+        // only the tracked containers are valued, any other container can be skipped
+        TrackedContainer container = TrackedContainer.forContainerId(event.getContainerId());
+        if(container != null) {
+            if(recorder.isRecording() && event.getItemContainer() != null) {
+                recorder.recordContainer(event.getContainerId(), event.getItemContainer().getItems());
+            }
+            markDirty(container.getBit());
+        }
     }
 
-    public void updateInventoryValue(ItemContainerChanged event) {
-        boolean banking = event.getContainerId() == InventoryID.BANK.getId();
-        boolean wornChange = event.getContainerId() == InventoryID.EQUIPMENT.getId();
-        updateInventoryValue(banking, false);
+    @Subscribe
+    public void onGameTick(GameTick gameTick) {
+        if(recorder.isRecording()) recorder.recordTick();
+        if(priceCache.isSnapshotStale()) {
+            // the client has loaded its prices, revalue everything priced from the snapshot once
+            refreshPrices();
+        }
+
+        BankValuator.Result bankValues = bankValuator.poll();
+        if(bankValues != null) {
+            // the background bank valuation finished, republish the bank profit
+            final boolean banked = _bankedDepositsSequence != 0
+                    && bankValues.getSequence() >= _bankedDepositsSequence;
+            for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+                _containers.setSubtotal(TrackedContainer.BANK, column, bankValues.getTotal(column));
+                // the subtotal now includes what was deposited before the bank was seen
+                if(banked) _pendingDeposits[column] -= _bankedDeposits[column];
+            }
+            if(banked) _bankedDepositsSequence = 0;
+            applyBankValue(bankValues.getTotal(_containers.getColumn())
+                    + _pendingDeposits[_containers.getColumn()]);
+            markDirty(DIRTY_INVENTORY);
+        }
+
+        if(_dirty != 0) {
+            // coalesce everything that changed during the tick into a single valuation pass
+            final long start = System.nanoTime();
+            final int dirty = _dirty;
+            _dirty = 0;
+            _itemsValued = 0;
+            final boolean banking = (dirty & DIRTY_BANK) != 0;
+            if(_depositBoxOpen && !banking && (dirty & DIRTY_REVALUED) == 0) {
+                updateDeposits(dirty);
+            } else if((dirty & DIRTY_OTHER) != 0) {
+                updateOtherContainers(dirty);
+            }
+            updateInventoryValue(banking, _depositBoxOpen);
+            _holdingsVersion++;
+            metrics.recordSince(PluginMetrics.Metric.VALUATION_PASS, start);
+            metrics.record(PluginMetrics.Metric.ITEMS_VALUED, _itemsValued);
+        }
+
+        updateProfitRates();
+        if(exporter.isExporting()) exportTick();
+        // a busy session changes every tick, so it's saved at most every few ticks rather than after every pass
+        if(++_ticksSinceSave >= SESSION_SAVE_TICKS && _sessionDirty) saveSession();
+    }
+
+    private void exportTick() {
+        final SessionExporter.Tick tick = new SessionExporter.Tick(System.currentTimeMillis(), client.getTickCount(),
+                _containers.getColumn(), _containers.getSubtotal(TrackedContainer.INVENTORY), netWorth(_containers.getColumn()),
+                _profitValue, _containers.getChangeCount());
+        _containers.drainChanges((itemId, quantity) ->
+                tick.addItem(itemId, priceCache.getName(itemId), quantity, valueHeld(itemId, quantity)));
+        exporter.export(tick);
+    }
+
+    private void updateProfitRates() {
+        // nothing has been valued yet
+        if(_oldProfitInvValue == Long.MIN_VALUE) return;
+
+        long now = System.currentTimeMillis();
+        _profitHistory.record(now, _profitValue);
+        if(config.displayProfitRates()) {
+            overlay.updateProfitRates(
+                    _profitHistory.ratePerHour(now, SIXTY_MINUTES),
+                    _profitHistory.deltaOver(now, FIVE_MINUTES),
+                    _profitHistory.deltaOver(now, FIFTEEN_MINUTES),
+                    _profitHistory.deltaOver(now, SIXTY_MINUTES));
+        }
+    }
+
+    /**
+     * Credits the bank with the items that left the carried containers while the deposit box was open. Only an
+     * item whose quantity went down with no counterpart in another container or on the ground counts, so equipping
+     * or dropping an item isn't taken for a deposit. With the bank open this isn't needed, as the bank itself is
+     * revalued from its changed slots.
+     */
+    private void updateDeposits(int dirty) {
+        _depositedItems.clear();
+        addCarried(_depositedItems, 1);
+        if((dirty & DIRTY_OTHER) != 0) updateOtherContainers(dirty);
+        currentInventoryValue();
+        addCarried(_depositedItems, -1);
+        _droppedItems.forEach((itemId, quantity) -> _depositedItems.add(itemId, -quantity));
+        _droppedItems.clear();
+
+        _depositedItems.forEach((itemId, quantity) -> {
+            if(quantity <= 0) return;
+            for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+                final long deposited = calculateItemValue(itemId, (int) Math.min(quantity, Integer.MAX_VALUE), column);
+                if(deposited == 0) continue;
+                _pendingDeposits[column] += deposited;
+                if(column != _containers.getColumn()) continue;
+                // the bank may never have been seen, in which case everything deposited counts
+                _lastBankValue = _lastBankValue == Long.MIN_VALUE ? deposited : _lastBankValue + deposited;
+            }
+        });
+    }
+
+    /**
+     * Adds the quantity of each item in every container but the bank to the map, times the given sign.
+     */
+    private void addCarried(IntLongMap quantities, int sign) {
+        for(TrackedContainer container : TrackedContainer.all()) {
+            if(container == TrackedContainer.BANK) continue;
+            final Item[] items = _containers.getContents(container);
+            if(items == null) continue;
+            for(Item item : items) {
+                if(item.getId() > 0) quantities.add(item.getId(), (long) sign * item.getQuantity());
+            }
+        }
+    }
+
+    @Subscribe
+    public void onItemSpawned(ItemSpawned event) {
+        if(recorder.isRecording()) recorder.recordItemSpawned(event, client.getLocalPlayer());
+        if(!_depositBoxOpen) return;
+        final Player player = client.getLocalPlayer();
+        if(player == null || !event.getTile().getWorldLocation().equals(player.getWorldLocation())) return;
+        _droppedItems.add(event.getItem().getId(), event.getItem().getQuantity());
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event) {
+        if(recorder.isRecording()) recorder.recordWidget(true, event.getGroupId());
+        if(event.getGroupId() == WidgetID.DEPOSIT_BOX_GROUP_ID) _depositBoxOpen = true;
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed event) {
+        if(recorder.isRecording()) recorder.recordWidget(false, event.getGroupId());
+        if(event.getGroupId() == WidgetID.DEPOSIT_BOX_GROUP_ID) {
+            _depositBoxOpen = false;
+            _droppedItems.clear();
+        }
+    }
+
+    private void updateOtherContainers(int dirty) {
+        for(TrackedContainer tracked : TrackedContainer.all()) {
+            if((dirty & DIRTY_OTHER & tracked.getBit()) == 0) continue;
+            // a closed container keeps its last known subtotal
+            ItemContainer container = client.getItemContainer(tracked.getInventoryId());
+            _containers.update(tracked, container != null ? container.getItems() : null, _valuer);
+        }
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event) {
+        if(recorder.isRecording()) recorder.recordVarbit(event);
+        if(!isRunePouchVarbit(event.getVarbitId())) return;
+        Arrays.fill(_runePouchValues, Long.MIN_VALUE);
+        // the pouch's slot is cached with the old value
+        _containers.invalidate(TrackedContainer.INVENTORY);
+        markDirty(DIRTY_INVENTORY | DIRTY_REVALUED);
+    }
+
+    private static boolean isRunePouchVarbit(int varbitId) {
+        for(int i = 0; i < NUM_SLOTS; i++) {
+            if(AMOUNT_VARBITS[i] == varbitId || RUNE_VARBITS[i] == varbitId) return true;
+        }
+        return false;
+    }
+
+    private void markDirty(int containers) {
+        _dirty |= containers;
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if(!event.getGroup().equals("inventoryValue")) return;
+        // config changes arrive on the thread that made them, the values are only touched on the client thread
+        switch(event.getKey()) {
+            case "recordEvents":
+                clientThread.invokeLater(this::updateRecording);
+                return;
+            case "exportSession":
+                clientThread.invokeLater(this::updateExport);
+                return;
+            case "useHaValue":
+                clientThread.invokeLater(this::selectColumn);
+                return;
+            case "ignoreItems":
+                // the matcher's patterns and resolved items are read by every valuation
+                clientThread.invokeLater(() -> {
+                    compileIgnoredItems();
+                    repriceItems();
+                });
+                return;
+            case "priceSource":
+                clientThread.invokeLater(() -> {
+                    selectPriceSource();
+                    // the value of any item may have changed, so every slot has to be repriced
+                    repriceItems();
+                });
+                return;
+            case "ignoreCoins":
+                clientThread.invokeLater(this::repriceItems);
+                return;
+        }
+        // the rest only change what's shown, so the values are just republished
+        clientThread.invokeLater(() -> markDirty(DIRTY_INVENTORY));
+    }
+
+    /**
+     * Shows the GE or HA column, as set in the config. Both are always kept, so this only swaps which is shown. The
+     * profit made so far is kept, only changes from now on are valued in the new column.
+     */
+    private void selectColumn() {
+        final int oldColumn = _containers.getColumn();
+        final int column = config.useHighAlchemyValue() ? ContainerValuation.HA : ContainerValuation.GE;
+        if(column == oldColumn) return;
+
+        final long inventoryDelta = _containers.getSubtotal(TrackedContainer.INVENTORY, column)
+                - _containers.getSubtotal(TrackedContainer.INVENTORY, oldColumn);
+        final long bankDelta = _containers.getSubtotal(TrackedContainer.BANK, column) + _pendingDeposits[column]
+                - _containers.getSubtotal(TrackedContainer.BANK, oldColumn) - _pendingDeposits[oldColumn];
+        if(_oldInventoryValue != Long.MIN_VALUE) _oldInventoryValue += inventoryDelta;
+        if(_originalBankValue != Long.MIN_VALUE) _originalBankValue += bankDelta;
+        if(_lastBankValue != Long.MIN_VALUE) _lastBankValue += bankDelta;
+        _containers.setColumn(column);
+        overlay.updateColumn(column);
+        // the most valuable stacks are republished from the new column
+        markDirty(DIRTY_INVENTORY);
+    }
+
+    private void repriceItems() {
+        Arrays.fill(_runePouchValues, Long.MIN_VALUE);
+        bankValuator.invalidate();
+        // before the containers, as a bag's slot is valued at its total
+        _bags.reprice(_bagValuer);
+        // the last seen contents are repriced in one pass, a container that changed since is updated on the next tick
+        _containers.reprice(_valuer, TrackedContainer.BANK);
+        Item[] bank = _containers.getContents(TrackedContainer.BANK);
+        if(bank != null) {
+            // the bank is usually closed, so it's left to the background valuation, whichever way it's valued when
+            // open. Its new subtotals are picked up like any other bank valuation, see onGameTick
+            bankValuator.submit(bank, _valuer);
+        }
+        markDirty(DIRTY_INVENTORY | DIRTY_REVALUED);
+    }
+
+    private void revalueBag(StorageBag bag) {
+        // a storage bag's slot is valued at the bag's total, so only the slots holding the bag change
+        bankValuator.invalidate(bag.getItemIds());
+        if(_containers.revalueItems(bag.getItemIds(), _valuer, TrackedContainer.BANK)) {
+            // the bag is in the bank, whose new subtotals are picked up like any other bank valuation, see onGameTick
+            bankValuator.submit(_containers.getContents(TrackedContainer.BANK), _valuer);
+        }
+        markDirty(DIRTY_INVENTORY | DIRTY_REVALUED);
     }
 
     public void updateInventoryValue(boolean banking, boolean depositing) {
-        long inventoryValue, bankValue, profitInvValue, profitBankValue;
+        long inventoryValue, profitInvValue, profitBankValue;
         inventoryValue = profitInvValue = profitBankValue = 0;
-        final List<String> ignoredItems = buildIgnoredItemsList();
 
         ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
         if (container != null) {
-            Item[] items = container.getItems();
-            inventoryValue = Arrays.stream(items).flatMapToLong(item ->
-                    LongStream.of(calculateItemValue(item, ignoredItems))).sum();
+            _containers.update(TrackedContainer.INVENTORY, container.getItems(), _valuer);
+            inventoryValue = _containers.getSubtotal(TrackedContainer.INVENTORY);
         }
         if(_oldProfitInvValue == Long.MIN_VALUE) profitInvValue = 0;
         else if(!banking && !depositing) {
@@ -145,175 +679,245 @@ public class InventoryValuePlugin extends Plugin
         if(banking) {
             container = client.getItemContainer(InventoryID.BANK);
             if (container != null) {
-                Item[] items = container.getItems();
-                bankValue = Arrays.stream(items).flatMapToLong(item ->
-                        LongStream.of(calculateItemValue(item, ignoredItems))).sum();
-
-                if(_originalBankValue == Long.MIN_VALUE) _originalBankValue = bankValue;
-
-                profitBankValue = bankValue - _originalBankValue;
-                _lastBankValue = bankValue;
+                // the bank's contents now include whatever was deposited through the deposit box
+                if(config.backgroundBankValuation()) {
+                    // the bank profit is updated once the executor has valued the snapshot, and the deposits are
+                    // dropped along with it so they're never counted twice or not at all, see onGameTick
+                    Item[] items = container.getItems();
+                    _containers.remember(TrackedContainer.BANK, items);
+                    System.arraycopy(_pendingDeposits, 0, _bankedDeposits, 0, _pendingDeposits.length);
+                    _bankedDepositsSequence = bankValuator.submit(items, _valuer);
+                } else {
+                    Arrays.fill(_pendingDeposits, 0L);
+                    _containers.update(TrackedContainer.BANK, container.getItems(), _valuer);
+                    applyBankValue(_containers.getSubtotal(TrackedContainer.BANK));
+                }
             }
+        }
+
+        if(_originalBankValue == Long.MIN_VALUE && _lastBankValue != Long.MIN_VALUE) {
+            // we've never seen the bank, so everything deposited so far is profit
+            profitBankValue = _lastBankValue;
         } else {
-            if(depositing && _originalBankValue == Long.MIN_VALUE)  {
-                profitBankValue = _lastBankValue;
-            } else if(_originalBankValue == Long.MIN_VALUE && _lastBankValue != Long.MIN_VALUE) {
-                profitBankValue = _lastBankValue;
-            } else { // !depositing, _obv != min, _lbv != min
-                profitBankValue = _lastBankValue - _originalBankValue;
-            }
+            profitBankValue = _lastBankValue - _originalBankValue;
         }
 
-        overlay.updateInventoryValue(inventoryValue, profitInvValue, profitBankValue);
+        publish(profitInvValue, profitBankValue);
+        _profitValue = profitInvValue + profitBankValue;
         _oldInventoryValue = inventoryValue;
         _oldProfitInvValue = profitInvValue;
+        _sessionDirty = true;
     }
 
-    @Subscribe
-    private void onMenuOptionClicked(MenuOptionClicked event)
-    {
-        // check option
-        if (event.getId() == 6 && (event.getItemId() == OPEN_HERB_SACK || event.getItemId() == HERB_SACK)) {
-            _herbs.clear();
+    /**
+     * Publishes the values of a valuation pass to the overlay in one go, unless none of them changed since the last
+     * publish. What's published is never written again, so only a pass that changed something allocates.
+     */
+    private void publish(long profitInvValue, long profitBankValue) {
+        final int column = _containers.getColumn();
+        boolean changed = column != _publishedColumn || profitInvValue != _publishedProfitInv
+                || profitBankValue != _publishedProfitBank;
+        for(int c = 0; c < ContainerValuation.COLUMNS; c++) {
+            changed |= _containers.getSubtotal(TrackedContainer.INVENTORY, c) != _publishedValues[c]
+                    || netWorth(c) != _publishedNetWorths[c];
         }
+        final List<ValuedStack> topStacks = rankTopStacks(config.topStacks());
+        if(!changed && topStacks == _publishedTopStacks) return;
+
+        _publishedColumn = column;
+        _publishedValues = columnValues(TrackedContainer.INVENTORY);
+        _publishedProfitInv = profitInvValue;
+        _publishedProfitBank = profitBankValue;
+        _publishedNetWorths = columnNetWorths();
+        _publishedTopStacks = topStacks;
+        overlay.updateInventoryValue(column, _publishedValues, profitInvValue, profitBankValue, _publishedNetWorths,
+                topStacks);
+    }
 
-        if (event.getId() == 6 && (event.getItemId() == OPEN_SEED_BOX || event.getItemId() == SEED_BOX)) {
-            _seeds.clear();
+    /**
+     * Merges the most valuable stacks of each container, which are kept ranked as slots change, into the overall
+     * (at most) n most valuable. Returns the stacks last published if they're still the same.
+     */
+    private List<ValuedStack> rankTopStacks(int n) {
+        if(n <= 0) return Collections.emptyList();
+        final List<ValuedStack> stacks = _stackCandidates;
+        stacks.clear();
+        for(TrackedContainer container : TrackedContainer.all()) {
+            List<ValuedStack> backgroundStacks = container == TrackedContainer.BANK && config.backgroundBankValuation()
+                    ? bankValuator.getTopStacks(_containers.getColumn()) : null;
+            if(backgroundStacks != null) stacks.addAll(backgroundStacks);
+            else _containers.collectTop(container, n, stacks);
         }
-
-        if (event.getId() == 6 && (event.getItemId() == OPEN_GEM_BAG || event.getItemId() == GEM_BAG)) {
-            _gems.clear();
+        stacks.sort(BY_VALUE_DESCENDING);
+
+        final int count = Math.min(n, stacks.size());
+        if(isPublished(stacks, count)) return _publishedTopStacks;
+        List<ValuedStack> top = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            ValuedStack stack = stacks.get(i);
+            top.add(stack.withName(itemManager.getItemComposition(stack.getItemId()).getName()));
         }
+        return top;
+    }
 
-        // empty option
-        if (event.getId() == 4 && (event.getItemId() == OPEN_HERB_SACK || event.getItemId() == HERB_SACK)) {
-            _herbs.clear();
+    private boolean isPublished(List<ValuedStack> stacks, int count) {
+        if(count != _publishedTopStacks.size()) return false;
+        for(int i = 0; i < count; i++) {
+            ValuedStack stack = stacks.get(i);
+            ValuedStack published = _publishedTopStacks.get(i);
+            if(stack.getItemId() != published.getItemId() || stack.getQuantity() != published.getQuantity()
+                    || stack.getValue() != published.getValue()) return false;
         }
+        return true;
+    }
 
-        if (event.getId() == 4 && (event.getItemId() == OPEN_SEED_BOX || event.getItemId() == SEED_BOX)) {
-            _seeds.clear();
+    private long[] columnValues(TrackedContainer container) {
+        long[] values = new long[ContainerValuation.COLUMNS];
+        for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+            values[column] = _containers.getSubtotal(container, column);
         }
+        return values;
+    }
 
-        if (event.getId() == 4 && (event.getItemId() == OPEN_GEM_BAG || event.getItemId() == GEM_BAG)) {
-            _gems.clear();
+    private long[] columnNetWorths() {
+        long[] netWorths = new long[ContainerValuation.COLUMNS];
+        for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+            netWorths[column] = netWorth(column);
         }
+        return netWorths;
+    }
 
-        boolean inDepositWindow = false;
-        if(event.getMenuOption().compareTo("Deposit") == 0) {
-            _depositing = true;
-            inDepositWindow = true;
-            final List<String> ignoredItems = buildIgnoredItemsList();
-
-            ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
-            if (container != null) {
-                Item[] items = container.getItems();
-                _preDepositInventoryValue = Arrays.stream(items).flatMapToLong(item ->
-                        LongStream.of(calculateItemValue(item, ignoredItems))).sum();
-            }
-        }
+    private long netWorth(int column) {
+        return _containers.getNetWorth(column) + _pendingDeposits[column];
+    }
 
-        if(!event.getMenuOption().contains("Deposit") && _depositing && !inDepositWindow) {
-            _depositing = false;
-            final List<String> ignoredItems = buildIgnoredItemsList();
+    private void applyBankValue(long bankValue) {
+        if(_originalBankValue == Long.MIN_VALUE) _originalBankValue = bankValue;
+        _lastBankValue = bankValue;
+    }
 
-            ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
-            if (container != null) {
-                Item[] items = container.getItems();
-                long inventoryValue = Arrays.stream(items).flatMapToLong(item ->
-                        LongStream.of(calculateItemValue(item, ignoredItems))).sum();
-                long increment = _preDepositInventoryValue - inventoryValue;
-                // we've never banked, it's possible the player is only depositing... So, let's assign the last bank value
-                // to our current deposit amount...
-                if(_lastBankValue == Long.MIN_VALUE) {
-                    _lastBankValue = increment;
-                } else {
-                    _lastBankValue += increment;
-                }
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event)
+    {
+        if(recorder.isRecording()) recorder.recordMenuOption(event);
+        final long start = System.nanoTime();
+        handleMenuOption(event);
+        metrics.recordSince(PluginMetrics.Metric.MENU_OPTION, start);
+    }
 
-                updateInventoryValue(false, true);
-            }
+    private void handleMenuOption(MenuOptionClicked event) {
+        StorageBag bag = StorageBag.forItemId(event.getItemId());
+        if(bag == null) return;
+        // checking a bag reports its contents all over again, emptying it leaves nothing behind
+        if(CHECK_OPTION.equals(event.getMenuOption()) || EMPTY_OPTION.equals(event.getMenuOption())) {
+            _bags.clear(bag);
+            revalueBag(bag);
         }
     }
 
     @Subscribe
     public void onChatMessage(ChatMessage chatMessage)
     {
-        String messageString = chatMessage.getMessage();
+        if(recorder.isRecording()) recorder.recordChat(chatMessage);
+        final long start = System.nanoTime();
+        chatMessageDispatcher.dispatch(chatMessage, _chatHandler);
+        metrics.recordSince(PluginMetrics.Metric.CHAT_MESSAGE, start);
+    }
 
-        // if this is a chat message for a herb sack "check"
-        if(messageString.contains("x Grimy"))
-        {
-            // split into quantity and herb name
-            String[] qtyAndHerb = chatMessage.getMessage().split(" x ");
-            if(qtyAndHerb.length == 2)
-            {
-                String herbName = qtyAndHerb[1].trim();
-                int herbQty = Integer.parseInt(qtyAndHerb[0].trim(), 10);
-                List<ItemPrice> itemPrices = itemManager.search(herbName);
-                if(itemPrices.size() == 1) {
-                    ItemPrice price = itemPrices.get(0);
-                    _herbs.put(price, herbQty);
-                    updateInventoryValue(false, false);
-                }
+    private final ChatMessageDispatcher.Handler _chatHandler = new ChatMessageDispatcher.Handler()
+    {
+        @Override
+        public void onStorageItem(StorageBag bag, String itemName, int quantity) {
+            final long start = System.nanoTime();
+            int itemId = itemNameIndex.find(itemName);
+            if(itemId != -1) {
+                _bags.put(bag, itemId, quantity, _bagValuer);
+                revalueBag(bag);
             }
+            metrics.recordSince(PluginMetrics.Metric.STORAGE_BAG, start);
         }
 
-        // if this is a chat message for a gem bag "check"
-        if(messageString.contains("Sapphires:") && messageString.contains("Emeralds:")) {
-            List<String> keys = new ArrayList<String>(Arrays.asList(messageString.split("\\P{L}+")));
-            List<String> values = new ArrayList<String>(Arrays.asList(messageString.split("[^0-9]+")));
-            keys.removeIf((str)-> str.compareTo("br") == 0);
-            values.removeIf(String::isEmpty);
-            if(keys.size() == values.size()) {
-                for(int i = 0; i < keys.size(); i++) {
-                    ItemPrice price = _gemLookup.get(keys.get(i));
-                    _gems.put(price, Integer.parseInt(values.get(i)));
-                    updateInventoryValue(false, false);
-                }
-            }
+        @Override
+        public void onStorageEmpty(StorageBag bag) {
+            final long start = System.nanoTime();
+            _bags.clear(bag);
+            revalueBag(bag);
+            metrics.recordSince(PluginMetrics.Metric.STORAGE_BAG, start);
+        }
 
+        @Override
+        public void onResetCommand() {
+            _oldInventoryValue  = 0L;
+            _oldProfitInvValue  = 0L;
+            _lastBankValue      = 0L;
+            // as if the bank was never seen, so the bank profit restarts from 0 too
+            _originalBankValue  = Long.MIN_VALUE;
+            _profitHistory.clear();
+            markDirty(DIRTY_INVENTORY);
+            // the reset is saved right away, not only once something changes
+            saveSession();
         }
 
-        // if this is a chat message for a seed box "check"
-        if(messageString.contains(" x ") && messageString.contains(" seed."))
-        {
-            // split into quantity and herb name
-            String[] qtyAndSeed = chatMessage.getMessage().split(" x ");
-            if(qtyAndSeed.length == 2)
-            {
-                // cut off the period...
-                String seedName = qtyAndSeed[1].trim().replace(".","");
-                int seedQty = Integer.parseInt(qtyAndSeed[0].trim(), 10);
-                List<ItemPrice> itemPrices = itemManager.search(seedName);
-                if(itemPrices.size() == 1) {
-                    ItemPrice price = itemPrices.get(0);
-                    _seeds.put(price, seedQty);
-                    updateInventoryValue(false, false);
-                }
+        @Override
+        public void onLookupCommand(String itemName) {
+            int itemId = itemNameIndex.find(itemName);
+            ChatMessageBuilder message = new ChatMessageBuilder();
+            if(itemId == -1) {
+                message.append(ChatColorType.NORMAL).append("There's no item named ")
+                        .append(ChatColorType.HIGHLIGHT).append(itemName);
+            } else {
+                long quantity = quantityHeld(itemId);
+                message.append(ChatColorType.NORMAL).append("You hold ")
+                        .append(ChatColorType.HIGHLIGHT).append(QuantityFormatter.formatNumber(quantity))
+                        .append(ChatColorType.NORMAL).append(" x " + itemManager.getItemComposition(itemId).getName()
+                                + " worth ")
+                        .append(ChatColorType.HIGHLIGHT).append(QuantityFormatter.formatNumber(valueHeld(itemId, quantity)));
             }
+            chatMessageManager.queue(QueuedMessage.builder()
+                    .type(ChatMessageType.CONSOLE)
+                    .runeLiteFormattedMessage(message.build())
+                    .build());
         }
+    };
 
-        if(messageString.compareTo("The herb sack is empty.") == 0)
-        {
-            _herbs.clear();
-        }
+    /**
+     * Returns a number that changes whenever what {@link #quantityHeld} or {@link #valueHeld} return may have.
+     */
+    int getHoldingsVersion() {
+        return _holdingsVersion;
+    }
 
-        if(messageString.compareTo("The gem bag is empty.") == 0)
-        {
-            _gems.clear();
-        }
+    /**
+     * Returns how many of the given item (noted or not) the player holds across the tracked containers, the rune
+     * pouch and the storage bags, as last seen.
+     */
+    long quantityHeld(int itemId) {
+        final int unnotedId = priceCache.getCanonicalId(itemId);
+        final int notedId = itemManager.getItemComposition(unnotedId).getLinkedNoteId();
+        long quantity = _containers.getQuantity(unnotedId);
+        if(notedId > 0) quantity += _containers.getQuantity(notedId);
+        quantity += _bags.getQuantity(unnotedId);
+        return quantity + runePouchQuantity(unnotedId);
+    }
 
-        if(messageString.compareTo("The seed box is empty.") == 0)
-        {
-            _seeds.clear();
-        }
+    /**
+     * Returns the value of the given quantity of an item, as it would be valued in the inventory.
+     */
+    long valueHeld(int itemId, long quantity) {
+        return quantity * calculateItemValue(priceCache.getCanonicalId(itemId), 1);
+    }
 
-        if(messageString.compareTo("!Reset_iv") == 0) {
-            _oldInventoryValue  = 0L;
-            _oldProfitInvValue  = 0L;
-            _lastBankValue      = 0L;
-            updateInventoryValue(false, false);
+    private int runePouchQuantity(int itemId) {
+        final EnumComposition runepouchEnum = client.getEnum(EnumID.RUNEPOUCH_RUNE);
+        int quantity = 0;
+        for (int i = 0; i < NUM_SLOTS; i++)
+        {
+            @Varbit int runeVarbit = RUNE_VARBITS[i];
+            if(runepouchEnum.getIntValue(client.getVarbitValue(runeVarbit)) != itemId) continue;
+            @Varbit int amountVarbit = AMOUNT_VARBITS[i];
+            quantity += client.getVarbitValue(amountVarbit);
         }
+        return quantity;
     }
 
     public List<String> buildIgnoredItemsList() {
@@ -322,18 +926,36 @@ public class InventoryValuePlugin extends Plugin
         return ignoredItemsList;
     }
 
-    public long calculateItemValue(Item item, List<String> ignoredItems) {
-        int itemId = item.getId();
-        if(itemManager != null) {
-            ItemComposition itemComposition = itemManager.getItemComposition(itemId);
-            String itemName = itemComposition.getName();
+    void compileIgnoredItems() {
+        ignoredItems.compile(buildIgnoredItemsList());
+    }
 
+    private long currentInventoryValue() {
+        ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
+        if (container != null) {
+            _containers.update(TrackedContainer.INVENTORY, container.getItems(), _valuer);
+        }
+        return _containers.getSubtotal(TrackedContainer.INVENTORY);
+    }
+
+    public long calculateItemValue(Item item) {
+        return calculateItemValue(item.getId(), item.getQuantity());
+    }
+
+    long calculateItemValue(int itemId, int quantity) {
+        return calculateItemValue(itemId, quantity, _containers.getColumn());
+    }
+
+    /**
+     * Returns the value of the given stack in a {@link ContainerValuation} column.
+     */
+    long calculateItemValue(int itemId, int quantity, int column) {
+        if(itemManager != null) {
             if ((itemId == ItemID.COINS_995 && config.ignoreCoins())) {
                 return 0L;
             } else if(itemId == ItemID.COINS_995) {
-                return item.getQuantity();
-            } else if (ignoredItems.contains(itemName.toLowerCase())) {
-                log.info("ignored item: " + itemName.toLowerCase());
+                return quantity;
+            } else if (!ignoredItems.isEmpty() && ignoredItems.isIgnored(itemId)) {
                 return 0L;
             }
 
@@ -342,78 +964,51 @@ public class InventoryValuePlugin extends Plugin
                 itemId == ItemID.DIVINE_RUNE_POUCH ||
                 itemId == ItemID.DIVINE_RUNE_POUCH_L)
             {
-                return handleRunePouch(item);
-            } else if(itemId == ItemID.GEM_BAG_12020 ||
-                      itemId == ItemID.OPEN_GEM_BAG) {
-                return handleGemBag();
-            } else if (itemId == ItemID.HERB_SACK ||
-                       itemId == ItemID.OPEN_HERB_SACK) {
-                return handleHerbSack();
-            } else if (itemId == ItemID.SEED_BOX ||
-                       itemId == ItemID.OPEN_SEED_BOX) {
-                return handleSeedBox();
+                return handleRunePouch(column);
+            }
+            StorageBag bag = StorageBag.forItemId(itemId);
+            if(bag != null) {
+                return _bags.getTotal(bag, column);
             }
 
-
-            return (long) item.getQuantity() * (config.useHighAlchemyValue() ?
-                    itemComposition.getHaPrice() : itemManager.getItemPrice(itemId));
+            return (long) quantity * priceOf(itemId, column);
         } else {
             return 0L;
         }
     }
 
+    private int priceOf(int itemId, int column) {
+        // not every priced item is in a container, e.g. storage bag contents and rune pouch runes
+        if(recorder.isRecording()) recorder.recordItem(itemId);
+        return priceSources.forColumn(column).getPrice(itemId);
+    }
+
     @Provides
     InventoryValueConfig provideConfig(ConfigManager configManager) {
         return configManager.getConfig(InventoryValueConfig.class);
     }
 
-    private long handleRunePouch(Item runePouch) {
+    private long handleRunePouch(int column) {
+        // the contents only change with the pouch varbits, see onVarbitChanged
+        if(_runePouchValues[column] == Long.MIN_VALUE) _runePouchValues[column] = valueRunePouch(column);
+        return _runePouchValues[column];
+    }
+
+    private long valueRunePouch(int column) {
         final EnumComposition runepouchEnum = client.getEnum(EnumID.RUNEPOUCH_RUNE);
-        int num = 0;
         long totalValue = 0L;
         for (int i = 0; i < NUM_SLOTS; i++)
         {
             @Varbit int amountVarbit = AMOUNT_VARBITS[i];
             int amount = client.getVarbitValue(amountVarbit);
+            if (amount <= 0) continue;
 
             @Varbit int runeVarbit = RUNE_VARBITS[i];
             int runeId = client.getVarbitValue(runeVarbit);
             int itemId = runepouchEnum.getIntValue(runeId);
-            ItemComposition itemComposition = itemManager.getItemComposition(itemId);
 
-            totalValue += (long) amount * (config.useHighAlchemyValue() ?
-                    itemComposition.getHaPrice() : itemManager.getItemPrice(itemId));
+            totalValue += (long) amount * priceOf(itemId, column);
         }
         return totalValue;
     }
-
-    public long handleHerbSack() {
-        long herbSackValue = 0L;
-        for(Map.Entry<ItemPrice,Integer> entry : _herbs.entrySet()) {
-            ItemComposition itemComposition = itemManager.getItemComposition(entry.getKey().getId());
-            herbSackValue += (long) entry.getValue() * (config.useHighAlchemyValue() ?
-                    itemComposition.getHaPrice() : entry.getKey().getPrice());
-        }
-        return herbSackValue;
-    }
-
-    public long handleGemBag() {
-        long gemBagValue = 0L;
-        for(Map.Entry<ItemPrice,Integer> entry : _gems.entrySet()) {
-            ItemComposition itemComposition = itemManager.getItemComposition(entry.getKey().getId());
-            gemBagValue += (long) entry.getValue() * (config.useHighAlchemyValue() ?
-                    itemComposition.getHaPrice() : entry.getKey().getPrice());
-        }
-        return gemBagValue;
-    }
-
-    public long handleSeedBox() {
-        long seedBoxValue = 0L;
-        for(Map.Entry<ItemPrice,Integer> entry : _seeds.entrySet()) {
-            ItemComposition itemComposition = itemManager.getItemComposition(entry.getKey().getId());
-            seedBoxValue += (long) entry.getValue() * (config.useHighAlchemyValue() ?
-                    itemComposition.getHaPrice() : entry.getKey().getPrice());
-        }
-        return seedBoxValue;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The values shown by the overlay, published as a whole after each valuation pass so the overlay never shows a
+ * value from one pass next to a profit from another. The inventory value and net worth are held for both
+ * {@link ContainerValuation} columns, along with the one shown.
+ */
+final class InventoryValueSnapshot
+{
+    static final InventoryValueSnapshot EMPTY = new InventoryValueSnapshot(ContainerValuation.GE,
+            new long[ContainerValuation.COLUMNS], 0L, 0L, new long[ContainerValuation.COLUMNS],
+            Collections.emptyList());
+
+    private final int column;
+    private final long[] inventoryValues;
+    private final long profitInvValue;
+    private final long profitBankValue;
+    private final long[] netWorths;
+    // the most valuable stacks, most valuable first
+    private final List<ValuedStack> topStacks;
+
+    InventoryValueSnapshot(int column, long[] inventoryValues, long profitInvValue, long profitBankValue,
+                           long[] netWorths, List<ValuedStack> topStacks) {
+        this.column = column;
+        this.inventoryValues = inventoryValues;
+        this.profitInvValue = profitInvValue;
+        this.profitBankValue = profitBankValue;
+        this.netWorths = netWorths;
+        this.topStacks = topStacks;
+    }
+
+    int getColumn() {
+        return column;
+    }
+
+    long getInventoryValue() {
+        return inventoryValues[column];
+    }
+
+    long getInventoryValue(int valueColumn) {
+        return inventoryValues[valueColumn];
+    }
+
+    long getProfitInvValue() {
+        return profitInvValue;
+    }
+
+    long getProfitBankValue() {
+        return profitBankValue;
+    }
+
+    long getNetWorth() {
+        return netWorths[column];
+    }
+
+    List<ValuedStack> getTopStacks() {
+        return topStacks;
+    }
+
+    InventoryValueSnapshot withColumn(int newColumn) {
+        return new InventoryValueSnapshot(newColumn, inventoryValues, profitInvValue, profitBankValue, netWorths,
+                topStacks);
+    }
+
+    Color getProfitInvColor() {
+        return profitInvValue >= 0 ? Color.GREEN : Color.RED;
+    }
+
+    Color getProfitBankColor() {
+        return profitBankValue >= 0 ? Color.GREEN : Color.RED;
+    }
+}
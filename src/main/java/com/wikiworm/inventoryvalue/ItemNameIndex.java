@@ -0,0 +1,125 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ItemID;
+import net.runelite.client.game.ItemManager;
+import net.runelite.http.api.item.ItemPrice;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maps the exact (lowercase) names of the items storage bags report in chat to their item ids. The index is built
+ * in the background from a handful of item manager searches, instead of searching the item database for every
+ * chat line.
+ */
+@Singleton
+class ItemNameIndex
+{
+    // every item a storage bag reports by its own name contains one of these
+    private static final String[] INDEXED_TERMS = { "grimy ", " seed", "raw " };
+
+    // the names storage bags report some items by instead of their item name
+    private static final Map<String, Integer> ALIASES = new HashMap<>();
+    static {
+        ALIASES.put("sapphires", ItemID.UNCUT_SAPPHIRE);
+        ALIASES.put("emeralds", ItemID.UNCUT_EMERALD);
+        ALIASES.put("rubies", ItemID.UNCUT_RUBY);
+        ALIASES.put("diamonds", ItemID.UNCUT_DIAMOND);
+        ALIASES.put("dragonstones", ItemID.UNCUT_DRAGONSTONE);
+        ALIASES.put("coal", ItemID.COAL);
+    }
+
+    private final ItemManager itemManager;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile Map<String, Integer> index = null;
+
+    @Inject
+    ItemNameIndex(ItemManager itemManager, ScheduledExecutorService executor) {
+        this.itemManager = itemManager;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the id of the item with the given name, or a name a storage bag reports it by (e.g. "Rubies"), or -1
+     * if there is none. Names the index doesn't have are searched for once and remembered, found or not.
+     */
+    int find(String name) {
+        final String lowerName = name.toLowerCase();
+        final Integer alias = ALIASES.get(lowerName);
+        if(alias != null) return alias;
+        final Map<String, Integer> current = index;
+        if(current != null) {
+            Integer itemId = current.get(lowerName);
+            if(itemId != null) return itemId;
+        } else {
+            build();
+        }
+
+        // not indexed (yet), fall back to searching for it once. Once the index is built the item manager has its
+        // prices, so a miss is final and is kept (as -1) too, instead of searching again for every chat line
+        int itemId = search(lowerName);
+        if(current != null) current.put(lowerName, itemId);
+        return itemId;
+    }
+
+    /**
+     * Starts building the index in the background, unless it's built or being built.
+     */
+    void build() {
+        if(index != null || !building.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                Map<String, Integer> newIndex = new ConcurrentHashMap<>();
+                for(String term : INDEXED_TERMS) {
+                    for(ItemPrice itemPrice : itemManager.search(term)) {
+                        newIndex.put(itemPrice.getName().toLowerCase(), itemPrice.getId());
+                    }
+                }
+                // the item manager hasn't loaded its prices yet, try again on the next lookup
+                if(!newIndex.isEmpty()) index = newIndex;
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    private int search(String lowerName) {
+        for(ItemPrice itemPrice : itemManager.search(lowerName)) {
+            if(itemPrice.getName().equalsIgnoreCase(lowerName)) return itemPrice.getId();
+        }
+        return -1;
+    }
+}
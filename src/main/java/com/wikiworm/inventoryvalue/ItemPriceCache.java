@@ -0,0 +1,176 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Caches the GE price, HA price, canonical (unnoted) id and lowercase name of every item the plugin values in arrays
+ * indexed by item id, so an item's composition is only fetched the first time it's seen after each price refresh.
+ * Must only be used from the client thread.
+ */
+@Singleton
+class ItemPriceCache
+{
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final ItemManager itemManager;
+
+    private int[] gePrices = new int[INITIAL_CAPACITY];
+    private int[] haPrices = new int[INITIAL_CAPACITY];
+    private int[] canonicalIds = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    // an entry is only valid while its generation matches the current one, so invalidating is O(1)
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int generation = 1;
+
+    // stands in for prices the client hasn't loaded yet, see resolve
+    private PriceSnapshot snapshot = PriceSnapshot.EMPTY;
+    // an item priced from the snapshot since the last invalidate, or -1
+    private int snapshotPricedItemId = -1;
+
+    @Inject
+    ItemPriceCache(ItemManager itemManager) {
+        this.itemManager = itemManager;
+    }
+
+    int getGePrice(int itemId) {
+        return resolve(itemId) ? gePrices[itemId] : 0;
+    }
+
+    int getHaPrice(int itemId) {
+        return resolve(itemId) ? haPrices[itemId] : 0;
+    }
+
+    int getCanonicalId(int itemId) {
+        return resolve(itemId) ? canonicalIds[itemId] : itemId;
+    }
+
+    String getName(int itemId) {
+        return resolve(itemId) ? names[itemId] : "";
+    }
+
+    /**
+     * Drops every cached entry, e.g. after the client has refreshed its prices.
+     */
+    void invalidate() {
+        generation++;
+        snapshotPricedItemId = -1;
+    }
+
+    PriceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(PriceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns true if an item was priced from the snapshot since the last invalidate, but the client has since
+     * loaded a price for it, meaning every cached price should be resolved again.
+     */
+    boolean isSnapshotStale() {
+        return snapshotPricedItemId != -1 && itemManager.getItemPrice(snapshotPricedItemId) != 0;
+    }
+
+    /**
+     * Merges the prices resolved since the last invalidate into the snapshot, for saving. Returns the current
+     * snapshot if nothing has been resolved.
+     */
+    PriceSnapshot toSnapshot() {
+        int capacity = generations.length + snapshot.size();
+        int[] ids = new int[capacity];
+        int[] ge = new int[capacity];
+        int[] ha = new int[capacity];
+        int size = 0;
+
+        // both are in item id order, so this is a plain merge where resolved prices win
+        int old = 0;
+        for(int itemId = 0; itemId < generations.length; itemId++) {
+            if(generations[itemId] != generation) continue;
+            while(old < snapshot.size() && snapshot.getId(old) < itemId) {
+                ids[size] = snapshot.getId(old);
+                ge[size] = snapshot.getGePrice(old);
+                ha[size++] = snapshot.getHaPrice(old++);
+            }
+            if(old < snapshot.size() && snapshot.getId(old) == itemId) old++;
+            ids[size] = itemId;
+            ge[size] = gePrices[itemId];
+            ha[size++] = haPrices[itemId];
+        }
+        if(old == 0 && size == 0) return snapshot;
+        while(old < snapshot.size()) {
+            ids[size] = snapshot.getId(old);
+            ge[size] = snapshot.getGePrice(old);
+            ha[size++] = snapshot.getHaPrice(old++);
+        }
+        return new PriceSnapshot(Arrays.copyOf(ids, size), Arrays.copyOf(ge, size), Arrays.copyOf(ha, size));
+    }
+
+    private boolean resolve(int itemId) {
+        if(itemId < 0) {
+            return false;
+        }
+        if(itemId >= generations.length) {
+            grow(itemId);
+        } else if(generations[itemId] == generation) {
+            return true;
+        }
+
+        ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+        gePrices[itemId] = itemManager.getItemPrice(itemId);
+        haPrices[itemId] = itemComposition.getHaPrice();
+        if(gePrices[itemId] == 0) {
+            // right after startup the client may not have loaded its prices yet
+            int index = snapshot.indexOf(itemId);
+            if(index >= 0 && snapshot.getGePrice(index) != 0) {
+                gePrices[itemId] = snapshot.getGePrice(index);
+                if(snapshotPricedItemId == -1) snapshotPricedItemId = itemId;
+            }
+        }
+        canonicalIds[itemId] = itemComposition.getNote() != -1 ? itemComposition.getLinkedNoteId() : itemId;
+        names[itemId] = itemComposition.getName().toLowerCase();
+        generations[itemId] = generation;
+        return true;
+    }
+
+    private void grow(int itemId) {
+        int capacity = Integer.highestOneBit(itemId) << 1;
+        gePrices = Arrays.copyOf(gePrices, capacity);
+        haPrices = Arrays.copyOf(haPrices, capacity);
+        canonicalIds = Arrays.copyOf(canonicalIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Histograms of what the plugin's hot paths cost, shown by {@link InventoryValueDebugOverlay} and logged on
+ * shutdown.
+ */
+@Singleton
+class PluginMetrics
+{
+    enum Metric
+    {
+        VALUATION_PASS("Valuation pass", true),
+        ITEMS_VALUED("Items valued/pass", false),
+        STORAGE_BAG("Storage bag", true),
+        CHAT_MESSAGE("Chat message", true),
+        MENU_OPTION("Menu option", true),
+        OVERLAY_RENDER("Overlay render", true);
+
+        private final String label;
+        // nanoseconds, otherwise a plain count
+        private final boolean latency;
+
+        Metric(String label, boolean latency) {
+            this.label = label;
+            this.latency = latency;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        boolean isLatency() {
+            return latency;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final ValueHistogram[] histograms = new ValueHistogram[METRICS.length];
+
+    @Inject
+    PluginMetrics() {
+        for(int i = 0; i < histograms.length; i++) {
+            histograms[i] = new ValueHistogram();
+        }
+    }
+
+    void record(Metric metric, long value) {
+        histograms[metric.ordinal()].record(value);
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()}.
+     */
+    void recordSince(Metric metric, long startNanos) {
+        histograms[metric.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    ValueHistogram get(Metric metric) {
+        return histograms[metric.ordinal()];
+    }
+
+    static Metric[] metrics() {
+        return METRICS;
+    }
+
+    /**
+     * Formats the median, 99th percentile and maximum of a metric, e.g. "12us / 80us / 1.2ms".
+     */
+    String summarize(Metric metric) {
+        ValueHistogram histogram = get(metric);
+        return format(metric, histogram.getPercentile(50)) + " / " + format(metric, histogram.getPercentile(99))
+                + " / " + format(metric, histogram.getMax());
+    }
+
+    private static String format(Metric metric, long value) {
+        if(!metric.isLatency()) return Long.toString(value);
+        if(value < 1_000L) return value + "ns";
+        if(value < 1_000_000L) return value / 1_000L + "us";
+        return String.format("%.1fms", value / 1_000_000d);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import java.util.Arrays;
+
+/**
+ * GE and HA prices of a set of items, held in columns sorted by item id so a price is found with a binary search.
+ */
+final class PriceSnapshot
+{
+    static final PriceSnapshot EMPTY = new PriceSnapshot(new int[0], new int[0], new int[0]);
+
+    private final int[] ids;
+    private final int[] gePrices;
+    private final int[] haPrices;
+
+    /**
+     * @param ids item ids in ascending order
+     */
+    PriceSnapshot(int[] ids, int[] gePrices, int[] haPrices) {
+        this.ids = ids;
+        this.gePrices = gePrices;
+        this.haPrices = haPrices;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the index of the given item, or a negative number if it isn't in the snapshot.
+     */
+    int indexOf(int itemId) {
+        return Arrays.binarySearch(ids, itemId);
+    }
+
+    int getId(int index) {
+        return ids[index];
+    }
+
+    int getGePrice(int index) {
+        return gePrices[index];
+    }
+
+    int getHaPrice(int index) {
+        return haPrices[index];
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Keeps the last {@link PriceSnapshot} on disk, so items can be priced right after startup, before the client has
+ * loaded its own prices. The file holds the id, GE price and HA price columns one after another.
+ */
+@Slf4j
+@Singleton
+class PriceSnapshotStore
+{
+    private static final String FILE_NAME = "prices.dat";
+    private static final int MAGIC = 0x49565053; // "IVPS"
+    private static final int VERSION = 1;
+
+    private final ScheduledExecutorService executor;
+    private final File directory;
+
+    @Inject
+    PriceSnapshotStore(ScheduledExecutorService executor) {
+        this(executor, SessionStore.PLUGIN_DIR);
+    }
+
+    PriceSnapshotStore(ScheduledExecutorService executor, File directory) {
+        this.executor = executor;
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the saved snapshot, or returns an empty one if there's none (or it can't be read).
+     */
+    PriceSnapshot load() {
+        File file = new File(directory, FILE_NAME);
+        if(!file.isFile()) return PriceSnapshot.EMPTY;
+
+        try {
+            // copied onto the heap, Windows refuses to move the next snapshot over a file that is still mapped
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.debug("Ignoring price snapshot {} with an unknown format", file);
+                return PriceSnapshot.EMPTY;
+            }
+
+            int size = buffer.getInt();
+            if(size < 0 || size > buffer.remaining() / 12) {
+                throw new IllegalArgumentException("corrupt size " + size);
+            }
+            int[] ids = new int[size];
+            int[] gePrices = new int[size];
+            int[] haPrices = new int[size];
+            IntBuffer columns = buffer.asIntBuffer();
+            columns.get(ids);
+            columns.get(gePrices);
+            columns.get(haPrices);
+            return new PriceSnapshot(ids, gePrices, haPrices);
+        } catch(IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Unable to read price snapshot {}", file, e);
+            return PriceSnapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Writes the snapshot on the executor.
+     */
+    void save(PriceSnapshot snapshot) {
+        executor.execute(() -> write(snapshot));
+    }
+
+    private void write(PriceSnapshot snapshot) {
+        File file = new File(directory, FILE_NAME);
+        File temp = new File(directory, FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for(int i = 0; i < snapshot.size(); i++) out.writeInt(snapshot.getId(i));
+                for(int i = 0; i < snapshot.size(); i++) out.writeInt(snapshot.getGePrice(i));
+                for(int i = 0; i < snapshot.size(); i++) out.writeInt(snapshot.getHaPrice(i));
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            log.warn("Unable to write price snapshot {}", file, e);
+        }
+    }
+}
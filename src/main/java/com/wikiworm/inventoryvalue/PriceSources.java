@@ -0,0 +1,180 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * The {@link PriceSource}s items can be valued with: the market source selected in the config, and HA. Custom
+ * prices are read from a text file of `item name or id = price` lines, any item not listed falls back to its GE
+ * price. The file is read on the executor, see {@link #readCustomPrices}. Must only be used from the client thread.
+ */
+@Slf4j
+@Singleton
+class PriceSources
+{
+    static final String CUSTOM_PRICES_FILE = "custom-prices.txt";
+
+    private final ItemPriceCache priceCache;
+    private final ScheduledExecutorService executor;
+    private final File directory;
+
+    private final PriceSource grandExchange;
+    private final PriceSource highAlchemy;
+    private final PriceSource highest;
+
+    private CustomPrices custom = CustomPrices.EMPTY;
+    private PriceSource market;
+
+    @Inject
+    PriceSources(ItemPriceCache priceCache, ScheduledExecutorService executor) {
+        this(priceCache, executor, SessionStore.PLUGIN_DIR);
+    }
+
+    PriceSources(ItemPriceCache priceCache, ScheduledExecutorService executor, File directory) {
+        this.priceCache = priceCache;
+        this.executor = executor;
+        this.directory = directory;
+        grandExchange = priceCache::getGePrice;
+        highAlchemy = priceCache::getHaPrice;
+        highest = itemId -> Math.max(priceCache.getGePrice(itemId), priceCache.getHaPrice(itemId));
+        market = grandExchange;
+    }
+
+    /**
+     * Selects the market source items are valued with from now on, when not valued at their HA price. Custom prices
+     * are the ones last set, see {@link #readCustomPrices}.
+     */
+    PriceSource select(PriceSourceType type) {
+        if(type == PriceSourceType.HIGHEST) {
+            market = highest;
+        } else if(type == PriceSourceType.CUSTOM) {
+            market = itemId -> {
+                final long byId = custom.byId.get(priceCache.getCanonicalId(itemId));
+                if(byId != 0L) return (int) (byId - CustomPrices.HELD);
+                Integer price = custom.byName.isEmpty() ? null : custom.byName.get(priceCache.getName(itemId));
+                return price != null ? price : grandExchange.getPrice(itemId);
+            };
+        } else {
+            market = grandExchange;
+        }
+        return market;
+    }
+
+    PriceSource market() {
+        return market;
+    }
+
+    PriceSource highAlchemy() {
+        return highAlchemy;
+    }
+
+    /**
+     * Returns the source for the given {@link ContainerValuation} column.
+     */
+    PriceSource forColumn(int column) {
+        return column == ContainerValuation.HA ? highAlchemy : market;
+    }
+
+    /**
+     * (Re)reads the custom prices file on the executor and passes the prices read to the callback, on the executor.
+     * They're only used once set with {@link #setCustomPrices}, which must be done on the client thread.
+     */
+    void readCustomPrices(Consumer<CustomPrices> callback) {
+        executor.execute(() -> callback.accept(readCustomPrices()));
+    }
+
+    void setCustomPrices(CustomPrices prices) {
+        custom = prices;
+    }
+
+    private CustomPrices readCustomPrices() {
+        File file = new File(directory, CUSTOM_PRICES_FILE);
+        if(!file.isFile()) return CustomPrices.EMPTY;
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch(IOException e) {
+            log.warn("Unable to read custom prices from {}", file, e);
+            return CustomPrices.EMPTY;
+        }
+        IntLongMap byId = new IntLongMap();
+        Map<String, Integer> byName = new HashMap<>();
+        for(String line : lines) {
+            line = line.trim();
+            int separator = line.lastIndexOf('=');
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            if(separator <= 0) {
+                log.warn("Skipping custom price line without a price: {}", line);
+                continue;
+            }
+
+            String item = line.substring(0, separator).trim().toLowerCase();
+            try {
+                int price = Integer.parseInt(line.substring(separator + 1).trim());
+                if(item.chars().allMatch(Character::isDigit)) byId.put(Integer.parseInt(item), price + CustomPrices.HELD);
+                else byName.put(item, price);
+            } catch(NumberFormatException e) {
+                log.warn("Skipping custom price line with an invalid price: {}", line);
+            }
+        }
+        return new CustomPrices(byId, byName);
+    }
+
+    /**
+     * The prices read from the custom prices file, by canonical item id and by lowercase item name.
+     */
+    static final class CustomPrices
+    {
+        static final CustomPrices EMPTY = new CustomPrices(new IntLongMap(), Collections.emptyMap());
+        // added to every price by id, as the map drops zero values and a custom price of 0 is still a price
+        private static final long HELD = 1L << 32;
+
+        private final IntLongMap byId;
+        private final Map<String, Integer> byName;
+
+        private CustomPrices(IntLongMap byId, Map<String, Integer> byName) {
+            this.byId = byId;
+            this.byName = byName;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import java.awt.Color;
+
+/**
+ * The profit per hour and the profit made over the last 5, 15 and 60 minutes, as shown by the overlay. A single
+ * instance is updated in place every tick, and read by the overlay whenever its version changed. Nothing makes the
+ * four rates safe to read while they're written, so must only be used from the client thread, which the overlay
+ * renders on.
+ */
+final class ProfitRates
+{
+    private long perHour;
+    private long last5Minutes;
+    private long last15Minutes;
+    private long last60Minutes;
+    // bumped whenever a rate changed
+    private int version;
+
+    void update(long newPerHour, long newLast5Minutes, long newLast15Minutes, long newLast60Minutes) {
+        if(newPerHour == perHour && newLast5Minutes == last5Minutes && newLast15Minutes == last15Minutes
+                && newLast60Minutes == last60Minutes) return;
+        perHour = newPerHour;
+        last5Minutes = newLast5Minutes;
+        last15Minutes = newLast15Minutes;
+        last60Minutes = newLast60Minutes;
+        version++;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    long getPerHour() {
+        return perHour;
+    }
+
+    long getLast5Minutes() {
+        return last5Minutes;
+    }
+
+    long getLast15Minutes() {
+        return last15Minutes;
+    }
+
+    long getLast60Minutes() {
+        return last60Minutes;
+    }
+
+    static Color colorOf(long profit) {
+        return profit >= 0 ? Color.GREEN : Color.RED;
+    }
+}
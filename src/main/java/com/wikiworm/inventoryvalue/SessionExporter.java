@@ -0,0 +1,282 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the value, profit and item quantity changes of every tick to gzipped CSV files, for analysing a session
+ * offline. The client thread only hands each {@link Tick} to a bounded queue, which the executor drains into the
+ * current file. Ticks that don't fit in the queue because the writer has fallen behind are dropped and counted
+ * instead of blocking the client thread. A file is only ever appended to, once it's grown past its maximum size the
+ * next tick starts a new one, and only the newest {@link #MAX_FILES} are kept.
+ */
+@Slf4j
+@Singleton
+class SessionExporter
+{
+    static final int QUEUE_CAPACITY = 1024;
+    static final int MAX_FILES = 100;
+    static final String FILE_SUFFIX = ".csv.gz";
+    // uncompressed, which compresses to roughly a tenth
+    private static final long MAX_FILE_BYTES = 16L << 20;
+    private static final File EXPORT_DIR = new File(SessionStore.PLUGIN_DIR, "exports");
+
+    private final ScheduledExecutorService executor;
+    private final File directory;
+    private final long maxFileBytes;
+
+    private final BlockingQueue<Tick> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    // set when exporting stops, the writer closes the file once it's written everything queued before
+    private volatile boolean closing = false;
+
+    // client thread only
+    private boolean exporting = false;
+
+    // executor only
+    private Writer out = null;
+    private long fileBytes = 0L;
+    private long droppedWritten = 0L;
+    private int part = 0;
+    private boolean failing = false;
+
+    @Inject
+    SessionExporter(ScheduledExecutorService executor) {
+        this(executor, EXPORT_DIR, MAX_FILE_BYTES);
+    }
+
+    SessionExporter(ScheduledExecutorService executor, File directory, long maxFileBytes) {
+        this.executor = executor;
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    boolean isExporting() {
+        return exporting;
+    }
+
+    void start() {
+        exporting = true;
+        closing = false;
+    }
+
+    /**
+     * Stops exporting, the ticks queued so far are still written before the file is closed.
+     */
+    void stop() {
+        if(!exporting) return;
+        exporting = false;
+        closing = true;
+        schedule();
+        long total = dropped.get();
+        if(total > 0) log.info("Dropped {} ticks the export couldn't keep up with", total);
+    }
+
+    /**
+     * Queues a tick to be written, dropping it if the queue is full. Never blocks.
+     */
+    void export(Tick tick) {
+        if(!queue.offer(tick)) {
+            dropped.incrementAndGet();
+        }
+        schedule();
+    }
+
+    /**
+     * Returns the number of ticks dropped since startup because the writer had fallen behind.
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void schedule() {
+        if(scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Tick tick;
+        while((tick = queue.poll()) != null) {
+            write(tick);
+        }
+        if(closing) {
+            close();
+        } else if(out != null) {
+            try {
+                // each batch is flushed, so the file can be read while it's still being written
+                out.flush();
+            } catch(IOException e) {
+                fail(e);
+            }
+        }
+        scheduled.set(false);
+
+        // a tick queued after the loop ended but before the flag was cleared would otherwise be stranded
+        if((!queue.isEmpty() || closing && out != null) && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void write(Tick tick) {
+        try {
+            if(out == null) open();
+            StringBuilder lines = new StringBuilder(64 * (1 + tick.itemCount));
+            long totalDropped = dropped.get();
+            if(totalDropped != droppedWritten) {
+                lines.append("dropped,").append(tick.time).append(",,").append(totalDropped - droppedWritten)
+                        .append('\n');
+                droppedWritten = totalDropped;
+            }
+            lines.append("tick,").append(tick.time).append(',').append(tick.tick).append(',')
+                    .append(tick.column == ContainerValuation.HA ? "HA" : "GE").append(',')
+                    .append(tick.inventoryValue).append(',').append(tick.netWorth).append(',').append(tick.profit)
+                    .append('\n');
+            for(int i = 0; i < tick.itemCount; i++) {
+                lines.append("item,").append(tick.time).append(',').append(tick.tick).append(',')
+                        .append(tick.itemIds[i]).append(',').append(quote(tick.names[i])).append(',')
+                        .append(tick.quantities[i]).append(',').append(tick.values[i]).append('\n');
+            }
+            out.append(lines);
+            fileBytes += lines.length();
+            failing = false;
+            if(fileBytes >= maxFileBytes) close();
+        } catch(IOException e) {
+            // the tick is lost with the file
+            dropped.incrementAndGet();
+            fail(e);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory.toPath());
+        // the part is zero padded, so the names sort in the order the files were written
+        File file = new File(directory, new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+                + String.format("-%06d", part++) + FILE_SUFFIX);
+        // appended to, so a file name that's somehow reused never loses what was written to it before
+        out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file, true), true),
+                StandardCharsets.UTF_8));
+        fileBytes = 0L;
+        out.write("# record,time,tick,column or item id,inventory value or item name,net worth or quantity,"
+                + "profit or value\n");
+        deleteOldFiles();
+        log.debug("Exporting session to {}", file);
+    }
+
+    private void deleteOldFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if(files == null || files.length <= MAX_FILES) return;
+        // the names start with the time they were created
+        Arrays.sort(files);
+        for(int i = 0; i < files.length - MAX_FILES; i++) {
+            if(!files[i].delete()) log.warn("Unable to delete old export {}", files[i]);
+        }
+    }
+
+    private void close() {
+        if(out == null) return;
+        try {
+            out.close();
+        } catch(IOException e) {
+            if(!failing) log.warn("Unable to finish session export", e);
+        }
+        out = null;
+    }
+
+    private void fail(IOException e) {
+        // only logged once while the disk keeps failing, the next tick tries a new file
+        if(!failing) log.warn("Unable to export session, starting a new file", e);
+        failing = true;
+        close();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The values at the end of a tick, and the change in quantity and value of every item that changed during it.
+     * Values are in the column shown at the time.
+     */
+    static final class Tick
+    {
+        private final long time;
+        private final int tick;
+        private final int column;
+        private final long inventoryValue;
+        private final long netWorth;
+        private final long profit;
+        private final int[] itemIds;
+        private final String[] names;
+        private final long[] quantities;
+        private final long[] values;
+        private int itemCount = 0;
+
+        Tick(long time, int tick, int column, long inventoryValue, long netWorth, long profit, int maxItems) {
+            this.time = time;
+            this.tick = tick;
+            this.column = column;
+            this.inventoryValue = inventoryValue;
+            this.netWorth = netWorth;
+            this.profit = profit;
+            itemIds = new int[maxItems];
+            names = new String[maxItems];
+            quantities = new long[maxItems];
+            values = new long[maxItems];
+        }
+
+        void addItem(int itemId, String name, long quantity, long value) {
+            itemIds[itemCount] = itemId;
+            names[itemCount] = name;
+            quantities[itemCount] = quantity;
+            values[itemCount++] = value;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+
+/**
+ * The profit state of a session, along with the last seen contents of the storage bags and tracked containers, as
+ * saved between client restarts by {@link SessionStore}.
+ */
+final class SessionState
+{
+    private final long originalBankValue;
+    private final long lastBankValue;
+    private final long inventoryValue;
+    private final long profitInvValue;
+    // indexed by StorageBag ordinal, item id to quantity
+    private final IntLongMap[] bags;
+    // indexed by TrackedContainer ordinal, null for a container that's never been seen
+    private final Item[][] containers;
+
+    SessionState(long originalBankValue, long lastBankValue, long inventoryValue, long profitInvValue,
+                 IntLongMap[] bags, Item[][] containers) {
+        this.originalBankValue = originalBankValue;
+        this.lastBankValue = lastBankValue;
+        this.inventoryValue = inventoryValue;
+        this.profitInvValue = profitInvValue;
+        this.bags = bags;
+        this.containers = containers;
+    }
+
+    long getOriginalBankValue() {
+        return originalBankValue;
+    }
+
+    long getLastBankValue() {
+        return lastBankValue;
+    }
+
+    long getInventoryValue() {
+        return inventoryValue;
+    }
+
+    long getProfitInvValue() {
+        return profitInvValue;
+    }
+
+    IntLongMap getBag(StorageBag bag) {
+        return bags[bag.ordinal()];
+    }
+
+    Item[] getContents(TrackedContainer container) {
+        return containers[container.ordinal()];
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Item;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Saves the {@link SessionState} of each account to a small binary file under the RuneLite directory. Saves are
+ * written on the executor and debounced, so a burst of changes results in a single write.
+ */
+@Slf4j
+@Singleton
+class SessionStore
+{
+    static final File PLUGIN_DIR = new File(RuneLite.RUNELITE_DIR, "inventory-value");
+    private static final int MAGIC = 0x49565353; // "IVSS"
+    // files of an older version are ignored, the session then starts from scratch
+    private static final int VERSION = 3;
+    private static final long SAVE_DELAY_SECONDS = 5;
+
+    private final ScheduledExecutorService executor;
+    private final File directory;
+
+    private final AtomicReference<PendingSave> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    @Inject
+    SessionStore(ScheduledExecutorService executor) {
+        this(executor, PLUGIN_DIR);
+    }
+
+    SessionStore(ScheduledExecutorService executor, File directory) {
+        this.executor = executor;
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the saved state of the given account, or returns null if there's none (or it can't be read).
+     */
+    SessionState load(long accountHash) {
+        File file = fileFor(accountHash);
+        if(!file.isFile()) return null;
+
+        try {
+            // read onto the heap rather than mapped, as a mapped file can't be replaced by the next save on Windows
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.debug("Ignoring session file {} with an unknown format", file);
+                return null;
+            }
+            return read(buffer);
+        } catch(IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Unable to read session file {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the saved state of the given account on the executor, then passes it (or null, as {@link #load(long)})
+     * to the callback, on the executor.
+     */
+    void load(long accountHash, Consumer<SessionState> callback) {
+        executor.execute(() -> callback.accept(load(accountHash)));
+    }
+
+    /**
+     * Queues the state to be saved. If a save is already queued it's replaced, as only the latest state matters.
+     */
+    void save(long accountHash, SessionState state) {
+        pending.set(new PendingSave(accountHash, state));
+        if(scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Writes any queued state now instead of waiting for the delay, e.g. when logging out.
+     */
+    void flushNow() {
+        if(pending.get() != null) executor.execute(this::flush);
+    }
+
+    private void flush() {
+        scheduled.set(false);
+        PendingSave save = pending.getAndSet(null);
+        if(save == null) return;
+
+        File file = fileFor(save.accountHash);
+        File temp = new File(directory, file.getName() + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                write(out, save.state);
+            }
+            // never leave a half written file behind
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            log.warn("Unable to write session file {}", file, e);
+        }
+    }
+
+    private File fileFor(long accountHash) {
+        return new File(directory, Long.toHexString(accountHash) + ".dat");
+    }
+
+    private static void write(DataOutputStream out, SessionState state) throws IOException {
+        out.writeLong(state.getOriginalBankValue());
+        out.writeLong(state.getLastBankValue());
+        out.writeLong(state.getInventoryValue());
+        out.writeLong(state.getProfitInvValue());
+        out.writeInt(StorageBag.all().length);
+        for(StorageBag bag : StorageBag.all()) {
+            // bags are keyed by their item id, so reordering StorageBag doesn't break old files
+            out.writeInt(bag.getItemIds()[0]);
+            writeBag(out, state.getBag(bag));
+        }
+
+        int seen = 0;
+        for(TrackedContainer container : TrackedContainer.all()) {
+            if(state.getContents(container) != null) seen++;
+        }
+        out.writeInt(seen);
+        for(TrackedContainer container : TrackedContainer.all()) {
+            Item[] items = state.getContents(container);
+            if(items == null) continue;
+            // containers are keyed by their container id, so reordering TrackedContainer doesn't break old files
+            out.writeInt(container.getInventoryId().getId());
+            out.writeInt(items.length);
+            for(Item item : items) {
+                out.writeInt(item.getId());
+                out.writeInt(item.getQuantity());
+            }
+        }
+    }
+
+    private static void writeBag(DataOutputStream out, IntLongMap bag) throws IOException {
+        out.writeInt(bag.size());
+        try {
+            bag.forEach((itemId, quantity) -> {
+                try {
+                    out.writeInt(itemId);
+                    out.writeLong(quantity);
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static SessionState read(ByteBuffer buffer) {
+        long originalBankValue = buffer.getLong();
+        long lastBankValue = buffer.getLong();
+        long inventoryValue = buffer.getLong();
+        long profitInvValue = buffer.getLong();
+        IntLongMap[] bags = new IntLongMap[StorageBag.all().length];
+        int saved = buffer.getInt();
+        for(int i = 0; i < saved; i++) {
+            StorageBag bag = StorageBag.forItemId(buffer.getInt());
+            IntLongMap contents = readBag(buffer);
+            if(bag != null) bags[bag.ordinal()] = contents;
+        }
+        for(int i = 0; i < bags.length; i++) {
+            if(bags[i] == null) bags[i] = new IntLongMap();
+        }
+
+        Item[][] containers = new Item[TrackedContainer.all().length][];
+        int seen = buffer.getInt();
+        for(int i = 0; i < seen; i++) {
+            TrackedContainer container = TrackedContainer.forContainerId(buffer.getInt());
+            Item[] items = new Item[checkedLength(buffer, buffer.getInt())];
+            for(int slot = 0; slot < items.length; slot++) {
+                items[slot] = new Item(buffer.getInt(), buffer.getInt());
+            }
+            if(container != null) containers[container.ordinal()] = items;
+        }
+        return new SessionState(originalBankValue, lastBankValue, inventoryValue, profitInvValue, bags, containers);
+    }
+
+    private static IntLongMap readBag(ByteBuffer buffer) {
+        int size = checkedLength(buffer, buffer.getInt());
+        IntLongMap bag = new IntLongMap(size);
+        for(int i = 0; i < size; i++) {
+            int itemId = buffer.getInt();
+            bag.put(itemId, buffer.getLong());
+        }
+        return bag;
+    }
+
+    private static int checkedLength(ByteBuffer buffer, int length) {
+        // every entry is at least two ints, so a corrupt length can't make us allocate more than the file holds
+        if(length < 0 || length > buffer.remaining() / 8) {
+            throw new IllegalArgumentException("corrupt length " + length);
+        }
+        return length;
+    }
+
+    private static final class PendingSave
+    {
+        private final long accountHash;
+        private final SessionState state;
+
+        private PendingSave(long accountHash, SessionState state) {
+            this.accountHash = accountHash;
+            this.state = state;
+        }
+    }
+}
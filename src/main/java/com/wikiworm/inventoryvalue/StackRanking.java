@@ -0,0 +1,128 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+/**
+ * Ranks the slots of a container by value in an indexed max-heap, so a changed slot is moved into place in
+ * O(log n) and the most valuable slots can be read without sorting the container.
+ */
+class StackRanking
+{
+    // the most stacks that can be shown, see InventoryValueConfig.topStacks
+    static final int MAX_TOP = 10;
+
+    // slots in heap order, and the heap index of each slot
+    private int[] heap = new int[0];
+    private int[] positions = new int[0];
+    private long[] values = new long[0];
+
+    /**
+     * Ranks every slot from scratch, e.g. after the whole container was valued.
+     */
+    void reset(long[] slotValues) {
+        int size = slotValues.length;
+        if(heap.length != size) {
+            heap = new int[size];
+            positions = new int[size];
+            values = new long[size];
+        }
+        System.arraycopy(slotValues, 0, values, 0, size);
+        for(int i = 0; i < size; i++) {
+            heap[i] = i;
+            positions[i] = i;
+        }
+        for(int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    void update(int slot, long value) {
+        long old = values[slot];
+        values[slot] = value;
+        if(value > old) siftUp(positions[slot]);
+        else if(value < old) siftDown(positions[slot]);
+    }
+
+    /**
+     * Writes the slots of the (at most) n most valuable stacks to the given array, most valuable first, skipping
+     * slots without a value. Returns the number of slots written.
+     */
+    int top(int n, int[] slots) {
+        if(heap.length == 0 || n <= 0) return 0;
+
+        // the next most valuable slot is always one of the children of those taken so far
+        int[] candidates = new int[2 * n + 1];
+        int candidateCount = 0;
+        candidates[candidateCount++] = 0;
+        int count = 0;
+        while(count < n && candidateCount > 0) {
+            int best = 0;
+            for(int i = 1; i < candidateCount; i++) {
+                if(values[heap[candidates[i]]] > values[heap[candidates[best]]]) best = i;
+            }
+            int index = candidates[best];
+            candidates[best] = candidates[--candidateCount];
+            if(values[heap[index]] <= 0) break;
+
+            slots[count++] = heap[index];
+            if(2 * index + 1 < heap.length) candidates[candidateCount++] = 2 * index + 1;
+            if(2 * index + 2 < heap.length) candidates[candidateCount++] = 2 * index + 2;
+        }
+        return count;
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while(index > 0) {
+            int parent = (index - 1) / 2;
+            if(values[heap[parent]] >= values[slot]) break;
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(slot, index);
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        int size = heap.length;
+        while(true) {
+            int child = 2 * index + 1;
+            if(child >= size) break;
+            if(child + 1 < size && values[heap[child + 1]] > values[heap[child]]) child++;
+            if(values[heap[child]] <= values[slot]) break;
+            move(heap[child], index);
+            index = child;
+        }
+        move(slot, index);
+    }
+
+    private void move(int slot, int index) {
+        heap[index] = slot;
+        positions[slot] = index;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ItemID;
+
+/**
+ * The storage bags whose contents are tracked from the messages the game sends when they're checked or emptied.
+ * A check message either reports a single entry, with "quantity" and "name" groups, or a "list" group holding
+ * several entries that each match the entry pattern. A bag is added here, nothing else has to know about it.
+ */
+enum StorageBag
+{
+    HERB_SACK(new int[]{ ItemID.HERB_SACK, ItemID.OPEN_HERB_SACK },
+            "(?<quantity>\\d{1,9}) x (?<name>Grimy .+)", null,
+            "The herb sack is empty."),
+    GEM_BAG(new int[]{ ItemID.GEM_BAG_12020, ItemID.OPEN_GEM_BAG },
+            "(?<list>Sapphires: .*)",
+            "(?<name>Sapphires|Emeralds|Rubies|Diamonds|Dragonstones): (?<quantity>\\d{1,9})",
+            "The gem bag is empty."),
+    SEED_BOX(new int[]{ ItemID.SEED_BOX, ItemID.OPEN_SEED_BOX },
+            "(?<quantity>\\d{1,9}) x (?<name>.+ seed)\\.", null,
+            "The seed box is empty."),
+    COAL_BAG(new int[]{ ItemID.COAL_BAG_12019, ItemID.OPEN_COAL_BAG },
+            "The coal bag contains (?<quantity>\\d{1,9}|one) pieces? of (?<name>coal)\\.", null,
+            "The coal bag is empty."),
+    FISH_BARREL(new int[]{ ItemID.FISH_BARREL, ItemID.OPEN_FISH_BARREL, ItemID.FISH_SACK_BARREL,
+                    ItemID.OPEN_FISH_SACK_BARREL },
+            "The barrel contains: (?<list>.+)", "(?<quantity>\\d{1,9}) x (?<name>[^,.]+)",
+            "The barrel is empty.");
+
+    private static final StorageBag[] VALUES = values();
+    // item id to ordinal + 1, as a missing key reads as 0
+    private static final IntLongMap BY_ITEM_ID = new IntLongMap();
+    static {
+        for(StorageBag bag : VALUES) {
+            for(int itemId : bag.itemIds) BY_ITEM_ID.put(itemId, bag.ordinal() + 1);
+        }
+    }
+
+    private final int[] itemIds;
+    private final String checkMessage;
+    private final String entry;
+    private final String emptyMessage;
+
+    StorageBag(int[] itemIds, String checkMessage, String entry, String emptyMessage) {
+        this.itemIds = itemIds;
+        this.checkMessage = checkMessage;
+        this.entry = entry;
+        this.emptyMessage = emptyMessage;
+    }
+
+    /**
+     * The item ids of the bag, open or closed. The first one identifies the bag in saved sessions.
+     */
+    int[] getItemIds() {
+        return itemIds;
+    }
+
+    /**
+     * The pattern of a message reporting (part of) the bag's contents.
+     */
+    String getCheckMessage() {
+        return checkMessage;
+    }
+
+    /**
+     * The pattern of each entry in the check message's list, or null if it reports a single entry.
+     */
+    String getEntry() {
+        return entry;
+    }
+
+    String getEmptyMessage() {
+        return emptyMessage;
+    }
+
+    /**
+     * Returns the bag with the given item id, or null if the item isn't a storage bag.
+     */
+    static StorageBag forItemId(int itemId) {
+        int ordinal = (int) BY_ITEM_ID.get(itemId);
+        return ordinal != 0 ? VALUES[ordinal - 1] : null;
+    }
+
+    static StorageBag[] all() {
+        return VALUES;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import java.util.Arrays;
+
+/**
+ * The last reported contents of every {@link StorageBag}, along with the total value of each bag in every
+ * {@link ContainerValuation} column. The totals are kept up to date as entries change, so a bag is valued in
+ * constant time however much it holds.
+ */
+class StorageBags
+{
+    // indexed by StorageBag ordinal
+    private final IntLongMap[] contents = new IntLongMap[StorageBag.all().length];
+    private final long[][] totals = new long[StorageBag.all().length][ContainerValuation.COLUMNS];
+
+    StorageBags() {
+        for(int i = 0; i < contents.length; i++) {
+            contents[i] = new IntLongMap();
+        }
+    }
+
+    /**
+     * Sets the quantity of an item in a bag, valuing only the change.
+     */
+    void put(StorageBag bag, int itemId, long quantity, ContainerValuation.ItemValuer valuer) {
+        IntLongMap bagContents = contents[bag.ordinal()];
+        long delta = quantity - bagContents.get(itemId);
+        if(delta == 0L) return;
+        bagContents.put(itemId, quantity);
+        for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+            totals[bag.ordinal()][column] += delta * valuer.valueOf(itemId, 1, column);
+        }
+    }
+
+    void clear(StorageBag bag) {
+        contents[bag.ordinal()].clear();
+        Arrays.fill(totals[bag.ordinal()], 0L);
+    }
+
+    void clear() {
+        for(StorageBag bag : StorageBag.all()) {
+            clear(bag);
+        }
+    }
+
+    /**
+     * Revalues every bag from its contents, e.g. after prices changed.
+     */
+    void reprice(ContainerValuation.ItemValuer valuer) {
+        for(StorageBag bag : StorageBag.all()) {
+            final long[] bagTotals = totals[bag.ordinal()];
+            Arrays.fill(bagTotals, 0L);
+            contents[bag.ordinal()].forEach((itemId, quantity) -> {
+                for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+                    bagTotals[column] += quantity * valuer.valueOf(itemId, 1, column);
+                }
+            });
+        }
+    }
+
+    long getTotal(StorageBag bag, int column) {
+        return totals[bag.ordinal()][column];
+    }
+
+    /**
+     * Returns how many of the given item all bags hold together.
+     */
+    long getQuantity(int itemId) {
+        long quantity = 0L;
+        for(IntLongMap bagContents : contents) {
+            quantity += bagContents.get(itemId);
+        }
+        return quantity;
+    }
+
+    /**
+     * Returns a copy of the contents of a bag, item id to quantity.
+     */
+    IntLongMap getContents(StorageBag bag) {
+        IntLongMap copy = new IntLongMap(contents[bag.ordinal()].size());
+        contents[bag.ordinal()].forEach(copy::put);
+        return copy;
+    }
+}
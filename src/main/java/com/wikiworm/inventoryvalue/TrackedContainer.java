@@ -0,0 +1,75 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.InventoryID;
+
+/**
+ * The item containers that count towards the player's net worth.
+ */
+enum TrackedContainer
+{
+    INVENTORY(InventoryID.INVENTORY),
+    EQUIPMENT(InventoryID.EQUIPMENT),
+    BANK(InventoryID.BANK),
+    LOOTING_BAG(InventoryID.LOOTING_BAG),
+    SEED_VAULT(InventoryID.SEED_VAULT);
+
+    private static final TrackedContainer[] VALUES = values();
+
+    private final InventoryID inventoryId;
+
+    TrackedContainer(InventoryID inventoryId) {
+        this.inventoryId = inventoryId;
+    }
+
+    InventoryID getInventoryId() {
+        return inventoryId;
+    }
+
+    /**
+     * A bit unique to this container, for keeping sets of containers in an int.
+     */
+    int getBit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the tracked container with the given container id, or null if it isn't tracked.
+     */
+    static TrackedContainer forContainerId(int containerId) {
+        for(TrackedContainer container : VALUES) {
+            if(container.inventoryId.getId() == containerId) return container;
+        }
+        return null;
+    }
+
+    static TrackedContainer[] all() {
+        return VALUES;
+    }
+}
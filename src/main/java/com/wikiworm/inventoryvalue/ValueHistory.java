@@ -0,0 +1,127 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+/**
+ * A fixed-size history of a value over time, kept in a ring of primitive timestamps and values. Only changes are
+ * recorded, so the value at any time is that of the latest entry at or before it, found with a binary search.
+ * Once full the oldest entries are overwritten.
+ */
+class ValueHistory
+{
+    private final long[] times;
+    private final long[] values;
+    private final int mask;
+    // index of the oldest entry and the number of entries
+    private int start = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity the number of changes kept, rounded up to a power of two
+     */
+    ValueHistory(int capacity) {
+        int length = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        times = new long[length];
+        values = new long[length];
+        mask = length - 1;
+    }
+
+    /**
+     * Records the value at the given time, which must not be before the time last recorded.
+     */
+    void record(long time, long value) {
+        if(size > 0 && values[(start + size - 1) & mask] == value) return;
+
+        int index;
+        if(size == times.length) {
+            index = start;
+            start = (start + 1) & mask;
+        } else {
+            index = (start + size++) & mask;
+        }
+        times[index] = time;
+        values[index] = value;
+    }
+
+    void clear() {
+        start = size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long getOldestTime() {
+        return size > 0 ? times[start] : 0L;
+    }
+
+    long getLatestValue() {
+        return size > 0 ? values[(start + size - 1) & mask] : 0L;
+    }
+
+    /**
+     * Returns the value at the given time, or the oldest value if the history doesn't reach back that far.
+     */
+    long valueAt(long time) {
+        if(size == 0) return 0L;
+
+        // find the last entry at or before the time
+        int low = 0;
+        int high = size - 1;
+        int found = 0;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            if(times[(start + mid) & mask] <= time) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return values[(start + found) & mask];
+    }
+
+    /**
+     * Returns how much the value changed over the given window ending at the given time.
+     */
+    long deltaOver(long now, long window) {
+        return getLatestValue() - valueAt(now - window);
+    }
+
+    /**
+     * Returns the change per hour over the given window ending at the given time, or over the whole history if
+     * that's shorter.
+     */
+    long ratePerHour(long now, long window) {
+        if(size == 0) return 0L;
+        long from = Math.max(now - window, getOldestTime());
+        long elapsed = now - from;
+        if(elapsed <= 0) return 0L;
+        return (long) ((getLatestValue() - valueAt(from)) * (3_600_000d / elapsed));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.events.ChatMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChatMessageDispatcherTest
+{
+    @Mock
+    private Client client;
+
+    @Mock
+    private Player localPlayer;
+
+    private ChatMessageDispatcher dispatcher;
+    private final List<String> calls = new ArrayList<>();
+
+    private final ChatMessageDispatcher.Handler handler = new ChatMessageDispatcher.Handler()
+    {
+        @Override
+        public void onStorageItem(StorageBag bag, String itemName, int quantity) {
+            calls.add(bag + " " + itemName + " " + quantity);
+        }
+
+        @Override
+        public void onStorageEmpty(StorageBag bag) {
+            calls.add("empty " + bag);
+        }
+
+        @Override
+        public void onResetCommand() {
+            calls.add("reset");
+        }
+
+        @Override
+        public void onLookupCommand(String itemName) {
+            calls.add("lookup " + itemName);
+        }
+    };
+
+    @Before
+    public void before() {
+        dispatcher = new ChatMessageDispatcher(client);
+    }
+
+    private void dispatch(ChatMessageType type, String name, String message) {
+        dispatcher.dispatch(new ChatMessage(null, type, name, message, "", 0), handler);
+    }
+
+    @Test
+    public void testStorageMessagesAreRouted() {
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "12 x Grimy ranarr weed");
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "30 x Ranarr seed.");
+        dispatch(ChatMessageType.SPAM, "", "The seed box is empty.");
+
+        assertEquals(Arrays.asList("HERB_SACK Grimy ranarr weed 12", "SEED_BOX Ranarr seed 30", "empty SEED_BOX"),
+                calls);
+    }
+
+    @Test
+    public void testGemBagCheckRoutesEveryGem() {
+        dispatch(ChatMessageType.GAMEMESSAGE, "",
+                "Sapphires: 4 / Emeralds: 2 / Rubies: 1<br>Diamonds: 0 / Dragonstones: 3");
+
+        assertEquals(Arrays.asList("GEM_BAG Sapphires 4", "GEM_BAG Emeralds 2", "GEM_BAG Rubies 1",
+                "GEM_BAG Diamonds 0", "GEM_BAG Dragonstones 3"), calls);
+    }
+
+    @Test
+    public void testCoalBagAndFishBarrelChecksAreRouted() {
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "The coal bag contains 27 pieces of coal.");
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "The coal bag contains one piece of coal.");
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "The barrel contains: 3 x Raw shark, 10 x Raw lobster");
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "The barrel is empty.");
+
+        assertEquals(Arrays.asList("COAL_BAG coal 27", "COAL_BAG coal 1", "FISH_BARREL Raw shark 3",
+                "FISH_BARREL Raw lobster 10", "empty FISH_BARREL"), calls);
+    }
+
+    @Test
+    public void testUnrelatedChatIsIgnored() {
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "You catch a lobster.");
+        dispatch(ChatMessageType.GAMEMESSAGE, "", "The bank is closed.");
+        // storage messages only count when the game sends them
+        dispatch(ChatMessageType.PUBLICCHAT, "Someone", "12 x Grimy ranarr weed");
+
+        assertEquals(Collections.emptyList(), calls);
+    }
+
+    @Test
+    public void testResetOnlyFromLocalPlayer() {
+        when(client.getLocalPlayer()).thenReturn(localPlayer);
+        when(localPlayer.getName()).thenReturn("wikiworm");
+
+        dispatch(ChatMessageType.PUBLICCHAT, "Someone else", ChatMessageDispatcher.RESET_COMMAND);
+        assertEquals(Collections.emptyList(), calls);
+
+        dispatch(ChatMessageType.PUBLICCHAT, "wikiworm", ChatMessageDispatcher.RESET_COMMAND);
+        assertEquals(Collections.singletonList("reset"), calls);
+    }
+
+    @Test
+    public void testLookupCommandCarriesTheItemName() {
+        when(client.getLocalPlayer()).thenReturn(localPlayer);
+        when(localPlayer.getName()).thenReturn("wikiworm");
+
+        dispatch(ChatMessageType.PUBLICCHAT, "wikiworm", "!iv Abyssal whip");
+        dispatch(ChatMessageType.PUBLICCHAT, "wikiworm", "!IV  ranarr seed ");
+        dispatch(ChatMessageType.PUBLICCHAT, "wikiworm", "!iv ");
+
+        assertEquals(Arrays.asList("lookup Abyssal whip", "lookup ranarr seed"), calls);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContainerValuationTest
+{
+    private ContainerValuation valuation;
+    private int valuedSlots;
+    // worth its id per unit at GE and half that at HA, counting each slot once
+    private final ContainerValuation.ItemValuer valuer = (id, qty, column) -> {
+        if(column == ContainerValuation.GE) valuedSlots++;
+        return column == ContainerValuation.GE ? (long) id * qty : (long) id * qty / 2;
+    };
+
+    @Before
+    public void before() {
+        valuation = new ContainerValuation();
+        valuedSlots = 0;
+    }
+
+    @Test
+    public void testFirstUpdateValuesEveryOccupiedSlot() {
+        Item[] items = { new Item(10, 2), new Item(-1, 0), new Item(5, 3) };
+
+        assertTrue(valuation.update(items, valuer));
+        assertEquals(35, valuation.getTotal(ContainerValuation.GE));
+        assertEquals(2, valuedSlots);
+    }
+
+    @Test
+    public void testUnchangedContentsAreSkipped() {
+        Item[] items = { new Item(10, 2), new Item(5, 3) };
+        valuation.update(items, valuer);
+        valuedSlots = 0;
+
+        assertFalse(valuation.update(new Item[]{ new Item(10, 2), new Item(5, 3) }, valuer));
+        assertEquals(0, valuedSlots);
+        assertEquals(35, valuation.getTotal(ContainerValuation.GE));
+    }
+
+    @Test
+    public void testOnlyChangedSlotsAreRevalued() {
+        valuation.update(new Item[]{ new Item(10, 2), new Item(5, 3), new Item(7, 1) }, valuer);
+        valuedSlots = 0;
+
+        // withdraw one of the stack in the second slot and empty the last one
+        assertTrue(valuation.update(new Item[]{ new Item(10, 2), new Item(5, 2), new Item(-1, 0) }, valuer));
+        assertEquals(1, valuedSlots);
+        assertEquals(30, valuation.getTotal(ContainerValuation.GE));
+    }
+
+    @Test
+    public void testPlaceholdersHaveNoValue() {
+        valuation.update(new Item[]{ new Item(10, 0), new Item(5, 1) }, valuer);
+
+        assertEquals(5, valuation.getTotal(ContainerValuation.GE));
+        assertEquals(1, valuedSlots);
+    }
+
+    @Test
+    public void testInvalidateRevaluesEverySlot() {
+        Item[] items = { new Item(10, 2), new Item(5, 3) };
+        valuation.update(items, valuer);
+        valuation.invalidate();
+        valuedSlots = 0;
+
+        assertTrue(valuation.update(items, (id, qty, column) -> {
+            if(column == ContainerValuation.GE) valuedSlots++;
+            return qty;
+        }));
+        assertEquals(2, valuedSlots);
+        assertEquals(5, valuation.getTotal(ContainerValuation.GE));
+    }
+
+    @Test
+    public void testRevalueItemsOnlyRevaluesTheirSlots() {
+        valuation.update(new Item[]{ new Item(10, 2), new Item(5, 3), new Item(10, 1) }, valuer);
+        valuedSlots = 0;
+
+        // item 10 is now worth 1 per unit
+        assertTrue(valuation.revalueItems(new int[]{ 10 }, (id, qty, column) -> {
+            if(column == ContainerValuation.GE) valuedSlots++;
+            return id == 10 ? qty : valuer.valueOf(id, qty, column);
+        }));
+        assertEquals(2, valuedSlots);
+        assertEquals(18, valuation.getTotal(ContainerValuation.GE));
+        assertFalse(valuation.revalueItems(new int[]{ 7 }, valuer));
+    }
+
+    @Test
+    public void testResizedContainerIsRevalued() {
+        valuation.update(new Item[]{ new Item(10, 2) }, valuer);
+
+        valuation.update(new Item[]{ new Item(10, 2), new Item(5, 3) }, valuer);
+        assertEquals(35, valuation.getTotal(ContainerValuation.GE));
+    }
+
+    @Test
+    public void testRepriceValuesEachItemOnceFromStoredContents() {
+        ContainerTracker tracker = new ContainerTracker();
+        tracker.update(TrackedContainer.INVENTORY, new Item[]{ new Item(10, 2), new Item(5, 3) }, valuer);
+        tracker.update(TrackedContainer.SEED_VAULT, new Item[]{ new Item(10, 7), new Item(5, 0), new Item(8, 1) },
+                valuer);
+        valuedSlots = 0;
+
+        // every unit is now worth its id plus one
+        tracker.reprice((id, qty, column) -> {
+            if(column == ContainerValuation.GE) valuedSlots++;
+            return (long) (id + 1) * qty;
+        }, TrackedContainer.BANK);
+        assertEquals(3, valuedSlots);
+        assertEquals(2 * 11 + 3 * 6, tracker.getSubtotal(TrackedContainer.INVENTORY));
+        assertEquals(7 * 11 + 9, tracker.getSubtotal(TrackedContainer.SEED_VAULT));
+        assertEquals(2 * 11 + 3 * 6 + 7 * 11 + 9, tracker.getNetWorth());
+    }
+
+    @Test
+    public void testDeferredContainerKeepsItsSubtotalUntilUpdated() {
+        ContainerTracker tracker = new ContainerTracker();
+        Item[] bank = { new Item(10, 7), new Item(8, 1) };
+        tracker.update(TrackedContainer.BANK, bank, valuer);
+
+        tracker.reprice((id, qty, column) -> (long) (id + 1) * qty, TrackedContainer.BANK);
+        assertEquals(7 * 10 + 8, tracker.getSubtotal(TrackedContainer.BANK));
+
+        // the same contents are revalued in full the next time they're seen
+        tracker.update(TrackedContainer.BANK, bank, (id, qty, column) -> (long) (id + 1) * qty);
+        assertEquals(7 * 11 + 9, tracker.getSubtotal(TrackedContainer.BANK));
+    }
+
+    @Test
+    public void testBothColumnsAreKeptSideBySide() {
+        valuation.update(new Item[]{ new Item(10, 2), new Item(5, 3) }, valuer);
+        valuation.update(new Item[]{ new Item(10, 2), new Item(5, 4) }, valuer);
+
+        assertEquals(40, valuation.getTotal(ContainerValuation.GE));
+        assertEquals(10 + 10, valuation.getTotal(ContainerValuation.HA));
+    }
+
+    @Test
+    public void testSwitchingColumnsNeedsNoRevaluing() {
+        ContainerTracker tracker = new ContainerTracker();
+        tracker.update(TrackedContainer.INVENTORY, new Item[]{ new Item(10, 2), new Item(5, 3) }, valuer);
+        tracker.update(TrackedContainer.BANK, new Item[]{ new Item(8, 4) }, valuer);
+        valuedSlots = 0;
+
+        tracker.setColumn(ContainerValuation.HA);
+        assertEquals(0, valuedSlots);
+        assertEquals(10 + 7, tracker.getSubtotal(TrackedContainer.INVENTORY));
+        assertEquals(10 + 7 + 16, tracker.getNetWorth());
+        assertEquals(35 + 32, tracker.getNetWorth(ContainerValuation.GE));
+
+        tracker.setColumn(ContainerValuation.GE);
+        assertEquals(35, tracker.getSubtotal(TrackedContainer.INVENTORY));
+    }
+
+    @Test
+    public void testHoldingsFollowEveryContainer() {
+        ContainerTracker tracker = new ContainerTracker();
+        tracker.update(TrackedContainer.INVENTORY, new Item[]{ new Item(10, 2), new Item(-1, 0) }, valuer);
+        tracker.remember(TrackedContainer.BANK, new Item[]{ new Item(10, 7), new Item(5, 0) });
+        assertEquals(9, tracker.getQuantity(10));
+        assertEquals(0, tracker.getQuantity(5));
+
+        // deposit the two 10s and withdraw one of the 5s
+        tracker.update(TrackedContainer.INVENTORY, new Item[]{ new Item(-1, 0), new Item(5, 1) }, valuer);
+        tracker.remember(TrackedContainer.BANK, new Item[]{ new Item(10, 9), new Item(5, 3) });
+        assertEquals(9, tracker.getQuantity(10));
+        assertEquals(4, tracker.getQuantity(5));
+
+        tracker.clear();
+        assertEquals(0, tracker.getQuantity(10));
+    }
+}
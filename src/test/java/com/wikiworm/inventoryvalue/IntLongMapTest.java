@@ -0,0 +1,78 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntLongMapTest
+{
+    @Test
+    public void testKeysReachingZeroAreRemoved() {
+        IntLongMap map = new IntLongMap();
+        map.add(4151, 2);
+        map.add(4151, -2);
+        map.put(995, 0);
+
+        assertEquals(0, map.size());
+        assertEquals(0L, map.get(4151));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomChanges() {
+        Random random = new Random(21);
+        IntLongMap map = new IntLongMap();
+        Map<Integer, Long> expected = new HashMap<>();
+        for(int step = 0; step < 100_000; step++) {
+            // few enough keys that removals and collisions are common
+            int key = random.nextInt(2000) - 10;
+            long delta = random.nextInt(21) - 10;
+            if(random.nextInt(10) == 0) {
+                map.put(key, delta);
+                expected.put(key, delta);
+            } else {
+                map.add(key, delta);
+                expected.merge(key, delta, Long::sum);
+            }
+            expected.remove(key, 0L);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for(Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+        }
+        Map<Integer, Long> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+}
@@ -0,0 +1,665 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.EnumComposition;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Player;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.ui.overlay.OverlayManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the plugin through random event sequences and checks after every step that the incrementally kept
+ * inventory values and net worths match a naive valuation of every slot from scratch. A failure names the seed and
+ * step, so it can be replayed by running that seed alone.
+ */
+// random sequences don't call every stubbed method in every run
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class InventoryValueDifferentialTest
+{
+    private static final int SEEDS = 12;
+    private static final int STEPS = 80;
+    private static final int FIRST_ITEM_ID = 1000;
+    private static final int ITEM_COUNT = 200;
+    // the noted and placeholder ids of item i are i plus these
+    private static final int NOTED_OFFSET = 20_000;
+    private static final int PLACEHOLDER_OFFSET = 40_000;
+    private static final int[] GEMS = {
+            ItemID.UNCUT_SAPPHIRE, ItemID.UNCUT_EMERALD, ItemID.UNCUT_RUBY, ItemID.UNCUT_DIAMOND, ItemID.UNCUT_DRAGONSTONE
+    };
+    private static final String[] GEM_NAMES = { "Sapphires", "Emeralds", "Rubies", "Diamonds", "Dragonstones" };
+    private static final String[] IGNORE_LISTS = {
+            "", "item 10*", "*3", "*m 11*", "Item 1042, item 1043; coins", "*bag", "uncut*", "coal"
+    };
+
+    @Mock
+    @Bind
+    private Client client;
+
+    @Mock
+    @Bind
+    private ItemManager itemManager;
+
+    @Mock
+    @Bind
+    private InventoryValueConfig config;
+
+    @Mock
+    @Bind
+    private OverlayManager overlayManager;
+
+    @Mock
+    @Bind
+    private ChatMessageManager chatMessageManager;
+
+    @Mock
+    @Bind
+    private ScheduledExecutorService executor;
+
+    @Mock
+    @Bind
+    private ClientThread clientThread;
+
+    @Mock
+    @Bind
+    private InventoryValueOverlay overlay;
+
+    @Mock
+    @Bind
+    private InventoryValueDebugOverlay debugOverlay;
+
+    @Mock
+    @Bind
+    private HoldingsTooltipOverlay tooltipOverlay;
+
+    @Mock
+    @Bind
+    private SessionStore sessionStore;
+
+    @Mock
+    @Bind
+    private PriceSnapshotStore priceSnapshotStore;
+
+    @Mock
+    private EnumComposition runePouchEnum;
+
+    @Inject
+    private InventoryValuePlugin plugin;
+
+    // the state the plugin is checked against
+    private Random random;
+    private final Map<InventoryID, Item[]> containers = new EnumMap<>(InventoryID.class);
+    // bag item id to the bag's contents, item id to quantity
+    private final Map<Integer, Map<Integer, Integer>> bags = new HashMap<>();
+    private final Map<Integer, ItemComposition> compositions = new HashMap<>();
+    private int priceGeneration;
+    private String ignoreItems;
+    private boolean ignoreCoins;
+    private boolean highAlchemy;
+    private PriceSourceType priceSource;
+    private boolean backgroundBankValuation;
+
+    // the values last published to the overlay
+    private int publishedColumn;
+    private long[] publishedValues;
+    private long publishedProfitBank;
+    private long[] publishedNetWorths;
+
+    @Test
+    public void testIncrementalValuesMatchFullRecompute() throws Exception {
+        stub();
+        for(int seed = 0; seed < SEEDS; seed++) {
+            // every other run values the bank in the background
+            run(seed, seed % 2 == 1);
+        }
+    }
+
+    @Test
+    public void testDepositBoxOnlyCreditsDepositedItems() throws Exception {
+        depositThroughDepositBox(false);
+    }
+
+    @Test
+    public void testDepositBoxCreditKeptUntilBankValuedInBackground() throws Exception {
+        depositThroughDepositBox(true);
+    }
+
+    private void depositThroughDepositBox(boolean background) throws Exception {
+        stub();
+        start(0, background);
+        Player player = Mockito.mock(Player.class);
+        WorldPoint location = new WorldPoint(3200, 3200, 0);
+        when(player.getWorldLocation()).thenReturn(location);
+        when(client.getLocalPlayer()).thenReturn(player);
+        WidgetLoaded opened = new WidgetLoaded();
+        opened.setGroupId(WidgetID.DEPOSIT_BOX_GROUP_ID);
+        plugin.onWidgetLoaded(opened);
+
+        // equipping an item only moves it between containers
+        final long profitBank = publishedProfitBank;
+        long[] netWorths = publishedNetWorths.clone();
+        Item[] inventory = containers.get(InventoryID.INVENTORY).clone();
+        Item[] equipment = containers.get(InventoryID.EQUIPMENT).clone();
+        int slot = valuedSlot(inventory);
+        Item worn = equipment[0];
+        equipment[0] = inventory[slot];
+        inventory[slot] = worn;
+        containers.put(InventoryID.INVENTORY, inventory);
+        containers.put(InventoryID.EQUIPMENT, equipment);
+        changed(InventoryID.INVENTORY);
+        changed(InventoryID.EQUIPMENT);
+        tick();
+        assertArrayEquals(netWorths, publishedNetWorths);
+        assertEquals(profitBank, publishedProfitBank);
+
+        // an item dropped under the player leaves the net worth
+        inventory = inventory.clone();
+        slot = valuedSlot(inventory);
+        Tile tile = Mockito.mock(Tile.class);
+        when(tile.getWorldLocation()).thenReturn(location);
+        TileItem dropped = Mockito.mock(TileItem.class);
+        when(dropped.getId()).thenReturn(inventory[slot].getId());
+        when(dropped.getQuantity()).thenReturn(inventory[slot].getQuantity());
+        inventory[slot] = new Item(-1, 0);
+        containers.put(InventoryID.INVENTORY, inventory);
+        plugin.onItemSpawned(new ItemSpawned(tile, dropped));
+        changed(InventoryID.INVENTORY);
+        tick();
+        assertMatchesReference("dropped");
+        assertEquals(profitBank, publishedProfitBank);
+
+        // a deposited item is credited to the bank, which isn't seen yet
+        inventory = inventory.clone();
+        slot = valuedSlot(inventory);
+        final Item deposited = inventory[slot];
+        long[] credit = new long[ContainerValuation.COLUMNS];
+        for(int column = 0; column < credit.length; column++) {
+            credit[column] = referenceValue(deposited.getId(), deposited.getQuantity(), column);
+        }
+        inventory[slot] = new Item(-1, 0);
+        containers.put(InventoryID.INVENTORY, inventory);
+        changed(InventoryID.INVENTORY);
+        tick();
+        assertNetWorthsCredited(credit, "deposited");
+        assertEquals(profitBank + credit[publishedColumn], publishedProfitBank);
+
+        // repricing the last seen bank keeps the credit
+        priceGeneration++;
+        plugin.onPriceRefresh();
+        tick();
+        assertNetWorthsCredited(credit, "repriced");
+        netWorths = publishedNetWorths.clone();
+
+        // until the bank is seen holding the deposit
+        plugin.onWidgetClosed(new WidgetClosed(WidgetID.DEPOSIT_BOX_GROUP_ID, 0, true));
+        Item[] bank = containers.get(InventoryID.BANK);
+        bank = Arrays.copyOf(bank, bank.length + 1);
+        bank[bank.length - 1] = deposited;
+        containers.put(InventoryID.BANK, bank);
+        changed(InventoryID.BANK);
+        plugin.onGameTick(new GameTick());
+        if(background) {
+            // the deposit is only dropped once the bank holding it has been valued
+            assertArrayEquals("bank submitted", netWorths, publishedNetWorths);
+        }
+        tick();
+        assertMatchesReference("bank seen");
+    }
+
+    private void run(long seed, boolean background) throws Exception {
+        start(seed, background);
+        for(int step = 0; step < STEPS; step++) {
+            String event = randomEvent();
+            tick();
+            assertMatchesReference("seed " + seed + ", step " + step + " (" + event + ")");
+        }
+    }
+
+    private void start(long seed, boolean background) throws Exception {
+        random = new Random(seed);
+        containers.clear();
+        bags.clear();
+        bags.put(ItemID.GEM_BAG_12020, new HashMap<>());
+        bags.put(ItemID.COAL_BAG_12019, new HashMap<>());
+        priceGeneration = 0;
+        ignoreItems = IGNORE_LISTS[random.nextInt(IGNORE_LISTS.length)];
+        ignoreCoins = random.nextBoolean();
+        highAlchemy = random.nextBoolean();
+        priceSource = PriceSourceType.GRAND_EXCHANGE;
+        backgroundBankValuation = background;
+        publishedValues = publishedNetWorths = null;
+
+        // a fresh injector for a fresh plugin
+        Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+        plugin.startUp();
+
+        containers.put(InventoryID.INVENTORY, randomContainer(InventoryID.INVENTORY, 28));
+        containers.put(InventoryID.EQUIPMENT, randomContainer(InventoryID.EQUIPMENT, 14));
+        containers.put(InventoryID.BANK, randomContainer(InventoryID.BANK, 1000 + random.nextInt(800)));
+        for(InventoryID inventoryId : containers.keySet()) {
+            changed(inventoryId);
+        }
+        tick();
+        assertMatchesReference("seed " + seed + ", start");
+    }
+
+    private String randomEvent() {
+        switch(random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+                changeSlots(InventoryID.INVENTORY, 1 + random.nextInt(3));
+                return "inventory";
+            case 3:
+            case 4:
+                changeSlots(InventoryID.BANK, 1 + random.nextInt(50));
+                return "bank";
+            case 5:
+                changeSlots(InventoryID.EQUIPMENT, 1);
+                return "equipment";
+            case 6:
+                checkGemBag();
+                return "gem bag";
+            case 7:
+                checkCoalBag();
+                return "coal bag";
+            case 8:
+                if(random.nextBoolean()) {
+                    ignoreItems = IGNORE_LISTS[random.nextInt(IGNORE_LISTS.length)];
+                    configChanged("ignoreItems");
+                    return "ignore " + ignoreItems;
+                }
+                ignoreCoins = !ignoreCoins;
+                configChanged("ignoreCoins");
+                return "ignore coins " + ignoreCoins;
+            case 9:
+                highAlchemy = !highAlchemy;
+                configChanged("useHaValue");
+                return "high alchemy " + highAlchemy;
+            case 10:
+                priceSource = priceSource == PriceSourceType.HIGHEST
+                        ? PriceSourceType.GRAND_EXCHANGE : PriceSourceType.HIGHEST;
+                configChanged("priceSource");
+                return "price source " + priceSource;
+            default:
+                priceGeneration++;
+                plugin.onPriceRefresh();
+                return "price refresh";
+        }
+    }
+
+    private void changeSlots(InventoryID inventoryId, int changes) {
+        Item[] items = containers.get(inventoryId).clone();
+        for(int i = 0; i < changes; i++) {
+            items[random.nextInt(items.length)] = randomItem(inventoryId);
+        }
+        containers.put(inventoryId, items);
+        changed(inventoryId);
+    }
+
+    private void checkGemBag() {
+        // checking clears the bag, then the game reports every gem
+        menuOptionClicked("Check", ItemID.GEM_BAG_12020);
+        Map<Integer, Integer> gems = bags.get(ItemID.GEM_BAG_12020);
+        gems.clear();
+        StringBuilder message = new StringBuilder();
+        for(int i = 0; i < GEMS.length; i++) {
+            int quantity = random.nextInt(61);
+            gems.put(GEMS[i], quantity);
+            message.append(i == 0 ? "" : i == 3 ? "<br>" : " / ").append(GEM_NAMES[i]).append(": ").append(quantity);
+        }
+        chatMessage(message.toString());
+    }
+
+    private void checkCoalBag() {
+        Map<Integer, Integer> coal = bags.get(ItemID.COAL_BAG_12019);
+        int quantity = random.nextInt(28);
+        if(quantity == 0) {
+            coal.clear();
+            chatMessage("The coal bag is empty.");
+        } else {
+            coal.put(ItemID.COAL, quantity);
+            chatMessage(quantity == 1 ? "The coal bag contains one piece of coal."
+                    : "The coal bag contains " + quantity + " pieces of coal.");
+        }
+    }
+
+    private void tick() {
+        // twice, as a bank valued in the background is only picked up on the tick after it's submitted
+        plugin.onGameTick(new GameTick());
+        plugin.onGameTick(new GameTick());
+    }
+
+    private void assertMatchesReference(String context) {
+        assertEquals(context, highAlchemy ? ContainerValuation.HA : ContainerValuation.GE, publishedColumn);
+        for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+            long netWorth = 0L;
+            for(Item[] items : containers.values()) {
+                netWorth += referenceTotal(items, column);
+            }
+            assertEquals(context + ", inventory in column " + column,
+                    referenceTotal(containers.get(InventoryID.INVENTORY), column), publishedValues[column]);
+            assertEquals(context + ", net worth in column " + column, netWorth, publishedNetWorths[column]);
+        }
+
+        int itemId = FIRST_ITEM_ID + random.nextInt(ITEM_COUNT);
+        assertEquals(context + ", quantity of " + itemId, referenceQuantity(itemId), plugin.quantityHeld(itemId));
+        int gem = GEMS[random.nextInt(GEMS.length)];
+        assertEquals(context + ", quantity of " + gem, referenceQuantity(gem), plugin.quantityHeld(gem));
+    }
+
+    private int valuedSlot(Item[] items) {
+        for(int slot = 0; ; slot++) {
+            if(referenceValue(items[slot].getId(), items[slot].getQuantity(), publishedColumn) > 0) return slot;
+        }
+    }
+
+    private void assertNetWorthsCredited(long[] credit, String context) {
+        for(int column = 0; column < ContainerValuation.COLUMNS; column++) {
+            long netWorth = credit[column];
+            for(Item[] items : containers.values()) {
+                netWorth += referenceTotal(items, column);
+            }
+            assertEquals(context + ", net worth in column " + column, netWorth, publishedNetWorths[column]);
+        }
+    }
+
+    // the reference valuation, every slot valued from scratch
+
+    private long referenceTotal(Item[] items, int column) {
+        long total = 0L;
+        for(Item item : items) {
+            total += referenceValue(item.getId(), item.getQuantity(), column);
+        }
+        return total;
+    }
+
+    private long referenceValue(int itemId, int quantity, int column) {
+        if(itemId <= 0 || quantity <= 0) return 0L;
+        if(itemId == ItemID.COINS_995) return ignoreCoins ? 0L : quantity;
+        if(isIgnored(nameOf(itemId))) return 0L;
+
+        Map<Integer, Integer> bag = bags.get(itemId);
+        if(bag != null) {
+            // a bag is worth its contents, whatever they're called
+            long total = 0L;
+            for(Map.Entry<Integer, Integer> entry : bag.entrySet()) {
+                total += (long) entry.getValue() * unitPrice(entry.getKey(), column);
+            }
+            return total;
+        }
+        return (long) quantity * unitPrice(itemId, column);
+    }
+
+    private long unitPrice(int itemId, int column) {
+        if(column == ContainerValuation.HA) return haPrice(itemId);
+        if(priceSource == PriceSourceType.HIGHEST) return Math.max(gePrice(itemId), haPrice(itemId));
+        return gePrice(itemId);
+    }
+
+    private boolean isIgnored(String name) {
+        String lowerName = name.toLowerCase();
+        for(String pattern : ignoreItems.toLowerCase().split("[,;]")) {
+            pattern = pattern.trim();
+            boolean leading = pattern.startsWith("*");
+            boolean trailing = pattern.length() > 1 && pattern.endsWith("*");
+            String text = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0)).trim();
+            if(text.isEmpty()) continue;
+            if(leading && trailing ? lowerName.contains(text)
+                    : leading ? lowerName.endsWith(text)
+                    : trailing ? lowerName.startsWith(text)
+                    : lowerName.equals(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long referenceQuantity(int itemId) {
+        long quantity = 0L;
+        for(Item[] items : containers.values()) {
+            for(Item item : items) {
+                if(item.getId() == itemId || item.getId() == itemId + NOTED_OFFSET) quantity += item.getQuantity();
+            }
+        }
+        for(Map<Integer, Integer> bag : bags.values()) {
+            quantity += bag.getOrDefault(itemId, 0);
+        }
+        return quantity;
+    }
+
+    // the random items, with names and prices derived from their ids
+
+    private Item[] randomContainer(InventoryID inventoryId, int size) {
+        Item[] items = new Item[size];
+        for(int i = 0; i < size; i++) {
+            items[i] = randomItem(inventoryId);
+        }
+        return items;
+    }
+
+    private Item randomItem(InventoryID inventoryId) {
+        int itemId = FIRST_ITEM_ID + random.nextInt(ITEM_COUNT);
+        int roll = random.nextInt(20);
+        if(inventoryId == InventoryID.BANK) {
+            // banks are mostly placeholders and stacks, and never hold notes
+            if(roll < 8) return new Item(itemId + PLACEHOLDER_OFFSET, 0);
+            if(roll == 8) return new Item(ItemID.COINS_995, 1 + random.nextInt(10_000_000));
+            // a storage bag left in the bank keeps its contents
+            if(roll == 9) return new Item(random.nextBoolean() ? ItemID.GEM_BAG_12020 : ItemID.COAL_BAG_12019, 1);
+            return new Item(itemId, 1 + random.nextInt(10_000));
+        }
+        if(inventoryId == InventoryID.EQUIPMENT) {
+            return roll < 5 ? new Item(-1, 0) : new Item(itemId, 1);
+        }
+        if(roll < 5) return new Item(-1, 0);
+        if(roll < 8) return new Item(itemId + NOTED_OFFSET, 1 + random.nextInt(5_000));
+        if(roll == 8) return new Item(ItemID.COINS_995, 1 + random.nextInt(100_000));
+        if(roll == 9) return new Item(ItemID.GEM_BAG_12020, 1);
+        if(roll == 10) return new Item(ItemID.COAL_BAG_12019, 1);
+        return new Item(itemId, 1);
+    }
+
+    private static int unnotedId(int itemId) {
+        return itemId >= NOTED_OFFSET + FIRST_ITEM_ID && itemId < NOTED_OFFSET + FIRST_ITEM_ID + ITEM_COUNT
+                ? itemId - NOTED_OFFSET : itemId;
+    }
+
+    private int gePrice(int itemId) {
+        // only the GE price changes on a refresh
+        return (unnotedId(itemId) * 7919 + priceGeneration * 104_729) % 50_000;
+    }
+
+    private static int haPrice(int itemId) {
+        return (unnotedId(itemId) * 104_729) % 30_000;
+    }
+
+    private static String nameOf(int itemId) {
+        switch(unnotedId(itemId)) {
+            case ItemID.COINS_995:
+                return "Coins";
+            case ItemID.GEM_BAG_12020:
+                return "Gem bag";
+            case ItemID.COAL_BAG_12019:
+                return "Coal bag";
+            case ItemID.COAL:
+                return "Coal";
+            case ItemID.UNCUT_SAPPHIRE:
+                return "Uncut sapphire";
+            case ItemID.UNCUT_EMERALD:
+                return "Uncut emerald";
+            case ItemID.UNCUT_RUBY:
+                return "Uncut ruby";
+            case ItemID.UNCUT_DIAMOND:
+                return "Uncut diamond";
+            case ItemID.UNCUT_DRAGONSTONE:
+                return "Uncut dragonstone";
+            default:
+                return "Item " + unnotedId(itemId);
+        }
+    }
+
+    private ItemComposition composition(int itemId) {
+        return compositions.computeIfAbsent(itemId, id -> Mockito.mock(ItemComposition.class, invocation -> {
+            boolean noted = unnotedId(id) != id;
+            boolean notable = id >= FIRST_ITEM_ID && id < FIRST_ITEM_ID + ITEM_COUNT;
+            switch(invocation.getMethod().getName()) {
+                case "getName":
+                    return nameOf(id);
+                case "getId":
+                    return id;
+                case "getPrice":
+                case "getHaPrice":
+                    return haPrice(id);
+                case "getNote":
+                    return noted ? 799 : -1;
+                case "getLinkedNoteId":
+                    return noted ? unnotedId(id) : notable ? id + NOTED_OFFSET : -1;
+                case "getPlaceholderId":
+                case "getPlaceholderTemplateId":
+                    return -1;
+                default:
+                    return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        }));
+    }
+
+    // plumbing between the model and the plugin's mocks
+
+    private void stub() {
+        when(config.ignoreItems()).thenAnswer(invocation -> ignoreItems);
+        when(config.ignoreCoins()).thenAnswer(invocation -> ignoreCoins);
+        when(config.useHighAlchemyValue()).thenAnswer(invocation -> highAlchemy);
+        when(config.priceSource()).thenAnswer(invocation -> priceSource);
+        when(config.backgroundBankValuation()).thenAnswer(invocation -> backgroundBankValuation);
+        when(priceSnapshotStore.load()).thenReturn(PriceSnapshot.EMPTY);
+
+        when(itemManager.getItemPrice(anyInt())).thenAnswer(invocation -> gePrice(invocation.getArgument(0)));
+        when(itemManager.getItemComposition(anyInt())).thenAnswer(invocation -> composition(invocation.getArgument(0)));
+        when(client.getItemContainer(any(InventoryID.class))).thenAnswer(invocation -> {
+            InventoryID inventoryId = invocation.getArgument(0);
+            final Item[] items = containers.get(inventoryId);
+            return items != null ? container(inventoryId, items) : null;
+        });
+        // an empty rune pouch
+        when(client.getEnum(anyInt())).thenReturn(runePouchEnum);
+
+        // the client thread and executor run everything right away
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(clientThread).invokeLater(any(Runnable.class));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        doAnswer(invocation -> {
+            publishedColumn = invocation.getArgument(0);
+            publishedValues = invocation.getArgument(1);
+            publishedProfitBank = invocation.getArgument(3);
+            publishedNetWorths = invocation.getArgument(4);
+            return null;
+        }).when(overlay).updateInventoryValue(anyInt(), any(), anyLong(), anyLong(), any(), any());
+    }
+
+    private static ItemContainer container(InventoryID inventoryId, Item[] items) {
+        ItemContainer container = Mockito.mock(ItemContainer.class);
+        when(container.getId()).thenReturn(inventoryId.getId());
+        when(container.getItems()).thenReturn(items);
+        return container;
+    }
+
+    private void changed(InventoryID inventoryId) {
+        plugin.onItemContainerChanged(new ItemContainerChanged(inventoryId.getId(),
+                container(inventoryId, containers.get(inventoryId))));
+    }
+
+    private void chatMessage(String message) {
+        plugin.onChatMessage(new ChatMessage(null, ChatMessageType.GAMEMESSAGE, "", message, "", 0));
+    }
+
+    private void menuOptionClicked(String option, int itemId) {
+        MenuEntry entry = Mockito.mock(MenuEntry.class);
+        when(entry.getOption()).thenReturn(option);
+        when(entry.getItemId()).thenReturn(itemId);
+        plugin.onMenuOptionClicked(new MenuOptionClicked(entry));
+    }
+
+    private void configChanged(String key) {
+        ConfigChanged event = new ConfigChanged();
+        event.setGroup("inventoryValue");
+        event.setKey(key);
+        plugin.onConfigChanged(event);
+    }
+}
@@ -33,10 +33,15 @@ import com.google.inject.Guice;
 import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
 import net.runelite.api.Client;
+import net.runelite.api.EnumComposition;
+import net.runelite.api.EnumID;
 import net.runelite.api.Item;
 import net.runelite.api.ItemComposition;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.ItemID;
+import net.runelite.api.Varbits;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.overlay.OverlayManager;
 import org.junit.Before;
@@ -48,11 +53,11 @@ import org.mockito.junit.MockitoJUnitRunner;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -78,6 +83,10 @@ public class InventoryValuePluginTest
     @Bind
     private ScheduledExecutorService executor;
 
+    @Mock
+    @Bind
+    private ClientThread clientThread;
+
     @Mock
     private File file;
 
@@ -91,11 +100,13 @@ public class InventoryValuePluginTest
     @Mock
     ItemComposition itemComposition;
 
+    @Mock
+    EnumComposition runePouchEnum;
+
     Item coins;
     Item testItem;
 
     String ignoredItemsConfig;
-    List<String> ignoredItemsList;
     int itemId;
     int quantity;
 
@@ -129,11 +140,6 @@ public class InventoryValuePluginTest
         itemId = ItemID.COINS_995;
         quantity = 3201;
         coins = new Item(itemId, quantity);
-        ignoredItemsList = Collections.emptyList();
-
-        when(itemComposition.getName()).thenReturn("Coins");
-        when(itemManager.getItemPrice(itemId)).thenReturn(1);
-        when(itemManager.getItemComposition(itemId)).thenReturn(itemComposition);
     }
 
     @Test
@@ -142,7 +148,7 @@ public class InventoryValuePluginTest
 
         when(config.ignoreCoins()).thenReturn(true);
 
-        assertEquals(0, inventoryValuePlugin.calculateItemValue(coins, ignoredItemsList));
+        assertEquals(0, inventoryValuePlugin.calculateItemValue(coins));
     }
 
     @Test
@@ -151,14 +157,16 @@ public class InventoryValuePluginTest
 
         when(config.ignoreCoins()).thenReturn(false);
 
-        assertEquals(quantity, inventoryValuePlugin.calculateItemValue(coins, ignoredItemsList));
+        assertEquals(quantity, inventoryValuePlugin.calculateItemValue(coins));
     }
 
     public void ignoreItemTestSetup(int itemId, String itemName, int itemValue) {
         quantity = 1;
         testItem = new Item(itemId, quantity);
         ignoredItemsConfig = "Bottomless compost bucket, Leather chaps";
-        ignoredItemsList = Arrays.asList("bottomless compost bucket", "leather chaps");
+
+        when(config.ignoreItems()).thenReturn(ignoredItemsConfig);
+        inventoryValuePlugin.compileIgnoredItems();
 
         when(itemComposition.getName()).thenReturn(itemName);
         when(itemManager.getItemPrice(itemId)).thenReturn(itemValue);
@@ -170,7 +178,7 @@ public class InventoryValuePluginTest
         int testItemValue = 40000000;
         ignoreItemTestSetup(ItemID.SARADOMIN_GODSWORD, "Saradomin godsword", testItemValue);
 
-        assertEquals(testItemValue, inventoryValuePlugin.calculateItemValue(testItem, ignoredItemsList));
+        assertEquals(testItemValue, inventoryValuePlugin.calculateItemValue(testItem));
     }
 
     @Test
@@ -178,6 +186,65 @@ public class InventoryValuePluginTest
         int testItemValue = 300000;
         ignoreItemTestSetup(ItemID.BOTTOMLESS_COMPOST_BUCKET, "Bottomless compost bucket", testItemValue);
 
-        assertEquals(0, inventoryValuePlugin.calculateItemValue(testItem, ignoredItemsList));
+        assertEquals(0, inventoryValuePlugin.calculateItemValue(testItem));
+    }
+
+    @Test
+    public void testItemIgnoredWhenMatchingWildcard() {
+        int testItemValue = 40000000;
+        ignoreItemTestSetup(ItemID.SARADOMIN_GODSWORD, "Saradomin godsword", testItemValue);
+
+        when(config.ignoreItems()).thenReturn("*godsword");
+        inventoryValuePlugin.compileIgnoredItems();
+        assertEquals(0, inventoryValuePlugin.calculateItemValue(testItem));
+
+        when(config.ignoreItems()).thenReturn("saradomin*");
+        inventoryValuePlugin.compileIgnoredItems();
+        assertEquals(0, inventoryValuePlugin.calculateItemValue(testItem));
+
+        when(config.ignoreItems()).thenReturn("*min god*");
+        inventoryValuePlugin.compileIgnoredItems();
+        assertEquals(0, inventoryValuePlugin.calculateItemValue(testItem));
+
+        when(config.ignoreItems()).thenReturn("zamorak*, *bow");
+        inventoryValuePlugin.compileIgnoredItems();
+        assertEquals(testItemValue, inventoryValuePlugin.calculateItemValue(testItem));
+    }
+
+    @Test
+    public void testItemCompositionIsOnlyFetchedOnce() {
+        int testItemValue = 40000000;
+        ignoreItemTestSetup(ItemID.SARADOMIN_GODSWORD, "Saradomin godsword", testItemValue);
+
+        assertEquals(testItemValue, inventoryValuePlugin.calculateItemValue(testItem));
+        assertEquals(testItemValue, inventoryValuePlugin.calculateItemValue(testItem));
+
+        verify(itemManager, times(1)).getItemComposition(ItemID.SARADOMIN_GODSWORD);
+        verify(itemManager, times(1)).getItemPrice(ItemID.SARADOMIN_GODSWORD);
+    }
+
+    @Test
+    public void testRunePouchIsOnlyValuedAgainAfterVarbitChange() {
+        Item runePouch = new Item(ItemID.RUNE_POUCH, 1);
+        when(client.getEnum(EnumID.RUNEPOUCH_RUNE)).thenReturn(runePouchEnum);
+        when(client.getVarbitValue(Varbits.RUNE_POUCH_RUNE1)).thenReturn(1);
+        when(client.getVarbitValue(Varbits.RUNE_POUCH_AMOUNT1)).thenReturn(100);
+        when(runePouchEnum.getIntValue(1)).thenReturn(ItemID.DEATH_RUNE);
+        when(itemComposition.getName()).thenReturn("Death rune");
+        when(itemManager.getItemComposition(ItemID.DEATH_RUNE)).thenReturn(itemComposition);
+        when(itemManager.getItemPrice(ItemID.DEATH_RUNE)).thenReturn(200);
+
+        assertEquals(20000, inventoryValuePlugin.calculateItemValue(runePouch));
+
+        // the pouch is cached until its varbits change
+        when(client.getVarbitValue(Varbits.RUNE_POUCH_AMOUNT1)).thenReturn(50);
+        assertEquals(20000, inventoryValuePlugin.calculateItemValue(runePouch));
+
+        VarbitChanged varbitChanged = new VarbitChanged();
+        varbitChanged.setVarbitId(Varbits.RUNE_POUCH_AMOUNT1);
+        inventoryValuePlugin.onVarbitChanged(varbitChanged);
+        assertEquals(10000, inventoryValuePlugin.calculateItemValue(runePouch));
+
+        verify(client, times(2)).getEnum(EnumID.RUNEPOUCH_RUNE);
     }
-}
\ No newline at end of file
+}
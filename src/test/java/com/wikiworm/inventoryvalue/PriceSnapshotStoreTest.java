@@ -0,0 +1,90 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PriceSnapshotStoreTest
+{
+    private File directory;
+    private ScheduledThreadPoolExecutor executor;
+    private PriceSnapshotStore store;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("inventory-value").toFile();
+        executor = new ScheduledThreadPoolExecutor(1);
+        store = new PriceSnapshotStore(executor, directory);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+        for(File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testSavedSnapshotIsRestored() throws InterruptedException {
+        store.save(new PriceSnapshot(new int[]{ 4151, 11802, 20997 }, new int[]{ 1_500_000, 12_000_000, 1_000_000_000 },
+                new int[]{ 72_000, 750_000, 120_000_000 }));
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        PriceSnapshot snapshot = store.load();
+        assertEquals(3, snapshot.size());
+
+        int index = snapshot.indexOf(11802);
+        assertEquals(1, index);
+        assertEquals(12_000_000, snapshot.getGePrice(index));
+        assertEquals(750_000, snapshot.getHaPrice(index));
+        assertTrue(snapshot.indexOf(995) < 0);
+    }
+
+    @Test
+    public void testMissingOrCorruptFileIsEmpty() throws IOException {
+        assertSame(PriceSnapshot.EMPTY, store.load());
+
+        Files.write(new File(directory, "prices.dat").toPath(), new byte[]{ 0x49, 0x56, 0x50 });
+        assertSame(PriceSnapshot.EMPTY, store.load());
+    }
+}
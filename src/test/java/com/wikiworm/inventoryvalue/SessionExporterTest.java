@@ -0,0 +1,179 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionExporterTest
+{
+    private File directory;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("inventory-value").toFile();
+        executor = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+        for(File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testTicksAreWrittenInOrder() throws Exception {
+        SessionExporter exporter = new SessionExporter(executor, directory, 1L << 20);
+        exporter.start();
+        SessionExporter.Tick tick =
+                new SessionExporter.Tick(1_000L, 7, ContainerValuation.GE, 5_000L, 80_000L, -250L, 2);
+        tick.addItem(4151, "abyssal whip", -1L, -1_500_000L);
+        tick.addItem(995, "coins", 2_000L, 2_000L);
+        exporter.export(tick);
+        exporter.export(new SessionExporter.Tick(1_600L, 8, ContainerValuation.HA, 4_000L, 79_000L, -1_250L, 0));
+        exporter.stop();
+        finish();
+
+        List<String> lines = readRecords();
+        assertEquals(Arrays.asList(
+                "tick,1000,7,GE,5000,80000,-250",
+                "item,1000,7,4151,\"abyssal whip\",-1,-1500000",
+                "item,1000,7,995,\"coins\",2000,2000",
+                "tick,1600,8,HA,4000,79000,-1250"), lines);
+    }
+
+    @Test
+    public void testFullFileStartsANewOne() throws Exception {
+        SessionExporter exporter = new SessionExporter(executor, directory, 100L);
+        exporter.start();
+        for(int i = 0; i < 10; i++) {
+            exporter.export(new SessionExporter.Tick(i, i, ContainerValuation.GE, 1_000L, 2_000L, 0L, 0));
+        }
+        exporter.stop();
+        finish();
+
+        assertTrue(directory.listFiles().length > 1);
+        assertEquals(10, readRecords().size());
+    }
+
+    @Test
+    public void testOnlyTheNewestFilesAreKept() throws Exception {
+        // every tick fills a file
+        SessionExporter exporter = new SessionExporter(executor, directory, 1L);
+        exporter.start();
+        for(int i = 0; i < SessionExporter.MAX_FILES + 5; i++) {
+            exporter.export(new SessionExporter.Tick(i, i, ContainerValuation.GE, 1_000L, 2_000L, 0L, 0));
+        }
+        exporter.stop();
+        finish();
+
+        assertEquals(SessionExporter.MAX_FILES, directory.listFiles().length);
+        List<String> lines = readRecords();
+        assertEquals("tick,5,5,GE,1000,2000,0", lines.get(0));
+        assertEquals(SessionExporter.MAX_FILES, lines.size());
+    }
+
+    @Test
+    public void testTicksAreDroppedWhenTheWriterFallsBehind() throws Exception {
+        // the writer can't run until the latch is released
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                latch.await();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        SessionExporter exporter = new SessionExporter(executor, directory, 1L << 20);
+        exporter.start();
+        for(int i = 0; i < SessionExporter.QUEUE_CAPACITY + 10; i++) {
+            exporter.export(new SessionExporter.Tick(i, i, ContainerValuation.GE, 1_000L, 2_000L, 0L, 0));
+        }
+        assertEquals(10L, exporter.getDropped());
+
+        latch.countDown();
+        exporter.stop();
+        finish();
+
+        List<String> lines = readRecords();
+        assertEquals("dropped,0,,10", lines.get(0));
+        assertEquals(SessionExporter.QUEUE_CAPACITY + 1, lines.size());
+    }
+
+    private void finish() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private List<String> readRecords() throws IOException {
+        File[] files = directory.listFiles();
+        // the names start with the time they were created, then the part
+        Arrays.sort(files, (a, b) -> Integer.compare(part(a), part(b)));
+        List<String> lines = new ArrayList<>();
+        for(File file : files) {
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    if(!line.startsWith("#")) lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static int part(File file) {
+        String name = file.getName();
+        return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1,
+                name.length() - SessionExporter.FILE_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.Item;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SessionStoreTest
+{
+    private static final long ACCOUNT = 0x1234_5678_9abcL;
+
+    private File directory;
+    private ScheduledThreadPoolExecutor executor;
+    private SessionStore store;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("inventory-value").toFile();
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        store = new SessionStore(executor, directory);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+        for(File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testSavedStateIsRestored() throws InterruptedException {
+        IntLongMap[] bags = emptyBags();
+        bags[StorageBag.HERB_SACK.ordinal()].put(199, 30);
+        bags[StorageBag.COAL_BAG.ordinal()].put(453, 27);
+        Item[][] containers = new Item[TrackedContainer.all().length][];
+        containers[TrackedContainer.BANK.ordinal()] = new Item[]{ new Item(995, 1_000_000), new Item(4151, 0) };
+
+        store.save(ACCOUNT, new SessionState(5_000L, 7_500L, 1_200L, -300L, bags, containers));
+        flush();
+
+        SessionState state = store.load(ACCOUNT);
+        assertEquals(5_000L, state.getOriginalBankValue());
+        assertEquals(7_500L, state.getLastBankValue());
+        assertEquals(1_200L, state.getInventoryValue());
+        assertEquals(-300L, state.getProfitInvValue());
+        assertEquals(30L, state.getBag(StorageBag.HERB_SACK).get(199));
+        assertEquals(1, state.getBag(StorageBag.HERB_SACK).size());
+        assertEquals(27L, state.getBag(StorageBag.COAL_BAG).get(453));
+        assertEquals(0, state.getBag(StorageBag.GEM_BAG).size());
+
+        Item[] bank = state.getContents(TrackedContainer.BANK);
+        assertEquals(2, bank.length);
+        assertEquals(995, bank[0].getId());
+        assertEquals(1_000_000, bank[0].getQuantity());
+        assertEquals(4151, bank[1].getId());
+        assertNull(state.getContents(TrackedContainer.LOOTING_BAG));
+    }
+
+    @Test
+    public void testFileOfAnOlderVersionIsIgnored() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x49565353);
+            out.writeInt(1);
+            out.writeLong(5_000L);
+            out.writeLong(7_500L);
+            out.writeLong(1_200L);
+            out.writeLong(-300L);
+            // the herb sack, gem bag and seed box in that order, then no containers
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(1623);
+            out.writeInt(4);
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+        Files.write(new File(directory, Long.toHexString(ACCOUNT) + ".dat").toPath(), bytes.toByteArray());
+
+        assertNull(store.load(ACCOUNT));
+    }
+
+    @Test
+    public void testMissingOrCorruptFileIsIgnored() throws IOException {
+        assertNull(store.load(ACCOUNT));
+
+        Files.write(new File(directory, Long.toHexString(ACCOUNT) + ".dat").toPath(), new byte[]{ 1, 2, 3 });
+        assertNull(store.load(ACCOUNT));
+    }
+
+    private static IntLongMap[] emptyBags() {
+        IntLongMap[] bags = new IntLongMap[StorageBag.all().length];
+        for(int i = 0; i < bags.length; i++) {
+            bags[i] = new IntLongMap();
+        }
+        return bags;
+    }
+
+    private void flush() throws InterruptedException {
+        store.flushNow();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class StackRankingTest
+{
+    @Test
+    public void testTopSkipsSlotsWithoutValue() {
+        StackRanking ranking = new StackRanking();
+        ranking.reset(new long[]{ 0L, 50L, 0L, 20L });
+
+        int[] slots = new int[4];
+        assertEquals(2, ranking.top(4, slots));
+        assertEquals(1, slots[0]);
+        assertEquals(3, slots[1]);
+    }
+
+    @Test
+    public void testUpdatedSlotsMatchSortedValues() {
+        Random random = new Random(20);
+        long[] values = new long[1200];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(10) == 0 ? 0L : random.nextInt(1_000_000);
+        }
+        StackRanking ranking = new StackRanking();
+        ranking.reset(values);
+
+        int[] slots = new int[StackRanking.MAX_TOP];
+        for(int step = 0; step < 5000; step++) {
+            int slot = random.nextInt(values.length);
+            values[slot] = random.nextInt(4) == 0 ? 0L : random.nextInt(1_000_000);
+            ranking.update(slot, values[slot]);
+
+            int count = ranking.top(slots.length, slots);
+            long[] top = new long[count];
+            for(int i = 0; i < count; i++) {
+                top[i] = values[slots[i]];
+            }
+            assertArrayEquals(expectedTop(values, slots.length), top);
+        }
+    }
+
+    private static long[] expectedTop(long[] values, int n) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long[] top = new long[n];
+        int count = 0;
+        for(int i = sorted.length - 1; i >= 0 && count < n && sorted[i] > 0; i--) {
+            top[count++] = sorted[i];
+        }
+        return Arrays.copyOf(top, count);
+    }
+}
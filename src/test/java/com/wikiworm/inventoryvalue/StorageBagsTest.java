@@ -0,0 +1,85 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import net.runelite.api.ItemID;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StorageBagsTest
+{
+    // worth its id per unit at GE and a tenth of that at HA
+    private final ContainerValuation.ItemValuer valuer =
+            (id, qty, column) -> column == ContainerValuation.GE ? (long) id * qty : (long) id * qty / 10;
+
+    @Test
+    public void testTotalsFollowEveryChange() {
+        StorageBags bags = new StorageBags();
+        bags.put(StorageBag.HERB_SACK, 200, 10, valuer);
+        bags.put(StorageBag.HERB_SACK, 300, 2, valuer);
+        bags.put(StorageBag.HERB_SACK, 200, 4, valuer);
+
+        assertEquals(200 * 4 + 300 * 2, bags.getTotal(StorageBag.HERB_SACK, ContainerValuation.GE));
+        assertEquals(20 * 4 + 30 * 2, bags.getTotal(StorageBag.HERB_SACK, ContainerValuation.HA));
+        assertEquals(0, bags.getTotal(StorageBag.SEED_BOX, ContainerValuation.GE));
+
+        bags.clear(StorageBag.HERB_SACK);
+        assertEquals(0, bags.getTotal(StorageBag.HERB_SACK, ContainerValuation.GE));
+        assertEquals(0, bags.getQuantity(200));
+    }
+
+    @Test
+    public void testRepriceRevaluesFromContents() {
+        StorageBags bags = new StorageBags();
+        bags.put(StorageBag.COAL_BAG, 453, 27, valuer);
+        bags.put(StorageBag.FISH_BARREL, 383, 5, valuer);
+
+        bags.reprice((id, qty, column) -> qty);
+        assertEquals(27, bags.getTotal(StorageBag.COAL_BAG, ContainerValuation.GE));
+        assertEquals(5, bags.getTotal(StorageBag.FISH_BARREL, ContainerValuation.HA));
+    }
+
+    @Test
+    public void testQuantitiesAddUpAcrossBags() {
+        StorageBags bags = new StorageBags();
+        bags.put(StorageBag.HERB_SACK, 207, 3, valuer);
+        bags.put(StorageBag.SEED_BOX, 207, 5, valuer);
+
+        assertEquals(8, bags.getQuantity(207));
+        assertEquals(3, bags.getContents(StorageBag.HERB_SACK).get(207));
+    }
+
+    @Test
+    public void testBagsAreFoundByEitherItemId() {
+        assertEquals(StorageBag.GEM_BAG, StorageBag.forItemId(ItemID.OPEN_GEM_BAG));
+        assertEquals(StorageBag.COAL_BAG, StorageBag.forItemId(ItemID.COAL_BAG_12019));
+        assertNull(StorageBag.forItemId(ItemID.COAL));
+    }
+}
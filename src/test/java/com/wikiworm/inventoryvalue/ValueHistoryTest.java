@@ -0,0 +1,108 @@
+/*
+ *  BSD 2-Clause License
+ *
+ *  Copyright (c) 2020, wikiworm (Brandon Ripley)
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice, this
+ *     list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ *  FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ *  DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ *  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ *  CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ *  OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ *  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.wikiworm.inventoryvalue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValueHistoryTest
+{
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void testValueAtReturnsLatestValueAtOrBeforeTime() {
+        ValueHistory history = new ValueHistory(16);
+        history.record(0L, 100L);
+        history.record(10 * MINUTE, 250L);
+        history.record(20 * MINUTE, 400L);
+
+        assertEquals(100L, history.valueAt(5 * MINUTE));
+        assertEquals(250L, history.valueAt(10 * MINUTE));
+        assertEquals(400L, history.valueAt(30 * MINUTE));
+        // before the history starts the oldest value is used
+        assertEquals(100L, history.valueAt(-MINUTE));
+    }
+
+    @Test
+    public void testDeltaOverWindow() {
+        ValueHistory history = new ValueHistory(16);
+        history.record(0L, 0L);
+        history.record(50 * MINUTE, 1_000L);
+        history.record(58 * MINUTE, 1_500L);
+
+        assertEquals(500L, history.deltaOver(60 * MINUTE, 5 * MINUTE));
+        assertEquals(1_500L, history.deltaOver(60 * MINUTE, 15 * MINUTE));
+    }
+
+    @Test
+    public void testRatePerHourUsesShorterHistory() {
+        ValueHistory history = new ValueHistory(16);
+        history.record(0L, 0L);
+        history.record(30 * MINUTE, 500_000L);
+
+        assertEquals(1_000_000L, history.ratePerHour(30 * MINUTE, 60 * MINUTE));
+    }
+
+    @Test
+    public void testUnchangedValuesAreNotRecorded() {
+        ValueHistory history = new ValueHistory(2);
+        history.record(0L, 5L);
+        history.record(MINUTE, 5L);
+        history.record(2 * MINUTE, 5L);
+        history.record(3 * MINUTE, 6L);
+
+        // both entries still fit, so the first change is kept
+        assertEquals(0L, history.getOldestTime());
+        assertEquals(6L, history.getLatestValue());
+    }
+
+    @Test
+    public void testOldestEntriesAreOverwrittenWhenFull() {
+        ValueHistory history = new ValueHistory(4);
+        for(int i = 0; i < 10; i++) {
+            history.record(i * MINUTE, i);
+        }
+
+        assertEquals(6 * MINUTE, history.getOldestTime());
+        assertEquals(6L, history.valueAt(0L));
+        assertEquals(8L, history.valueAt(8 * MINUTE));
+        assertEquals(9L, history.getLatestValue());
+    }
+
+    @Test
+    public void testClear() {
+        ValueHistory history = new ValueHistory(4);
+        history.record(0L, 5L);
+        history.clear();
+
+        assertTrue(history.isEmpty());
+        assertEquals(0L, history.ratePerHour(MINUTE, 60 * MINUTE));
+    }
+}